@@ -0,0 +1,89 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse and per-part throughput of every day. The parts are thin wrappers around each day's core, e.g.
+ * day 15 part 2 is {@code PathCalculator.calculateSafestPath} on the 5x board, day 19 part 1 is
+ * {@code BeaconLocationCalculator}, day 20 part 2 is 50 rounds of {@code ImageGrid.enhance},
+ * day 22 part 2 is {@code RebootProcessor} and day 25 part 1 is {@code CucumberBoard.waitTillStop}.
+ * A positive {@code size} benchmarks a synthetic input from {@code InputGenerators} of the generators module
+ * instead of the puzzle input. The input is read into a buffer once per trial and every parse runs over a new
+ * {@code InputCursor} on it, the path the runners take.
+ * <p>
+ * The module depends on the installed root and generators artifacts:
+ * <pre>
+ * mvn install -DskipTests                      (in the root project, then in generators/)
+ * mvn package                                  (in benchmarks/)
+ * java -jar target/benchmarks.jar SolverBenchmark -p day=10,24 -p size=200
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({"6", "7", "8", "9", "10", "11", "12", "13", "14", "15",
+            "16", "17", "18", "19", "20", "21", "22", "23", "24", "25"})
+    public int day;
+
+    @Param("0")
+    public int size;
+
+    @Param("1")
+    public long seed;
+
+    private SolverHandle solver;
+    private ByteBuffer input;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        solver = SolverHandle.forDay(day);
+        input = size > 0 ? solver.generateInput(size, seed) : solver.readInput();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return solver.parse(input);
+    }
+
+    @Benchmark
+    public Object part1(ParsedInput parsed) {
+        return solver.part1(parsed.input);
+    }
+
+    @Benchmark
+    public Object part2(ParsedInput parsed) {
+        return solver.part2(parsed.input);
+    }
+
+    /**
+     * The input parsed again, outside the measurement, before every part call. A day that computes a result on
+     * first use and shares it between its parts, such as day 10, is so timed doing that work every time.
+     */
+    @State(Scope.Thread)
+    public static class ParsedInput {
+        private Object input;
+
+        @Setup(Level.Invocation)
+        public void setUp(SolverBenchmark benchmark) {
+            input = benchmark.solver.parse(benchmark.input);
+        }
+    }
+}
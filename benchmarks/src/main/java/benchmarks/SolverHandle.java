@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Solvers live in the unnamed package, which JMH benchmarks cannot import,
+ * so the {@code Solver} contract is bound reflectively once per trial.
+ * Inputs are parsed through {@code parse(InputCursor)} over a byte buffer, as the runners parse them.
+ */
+class SolverHandle {
+    private final int day;
+    private final Object solver;
+    private final Constructor<?> cursor;
+    private final Method parse;
+    private final Method part1;
+    private final Method part2;
+
+    private SolverHandle(int day, Object solver, Class<?> solverInterface, Class<?> cursorClass) throws ReflectiveOperationException {
+        this.day = day;
+        this.solver = solver;
+        this.cursor = cursorClass.getConstructor(ByteBuffer.class);
+        this.parse = solverInterface.getMethod("parse", cursorClass);
+        this.part1 = solverInterface.getMethod("part1", Object.class);
+        this.part2 = solverInterface.getMethod("part2", Object.class);
+    }
+
+    public static SolverHandle forDay(int day) throws ReflectiveOperationException {
+        Object solver = Class.forName("Solvers").getMethod("forDay", int.class).invoke(null, day);
+        return new SolverHandle(day, solver, Class.forName("Solver"), Class.forName("InputCursor"));
+    }
+
+    /**
+     * The day's puzzle input, memory-mapped and loaded the way the runners read it.
+     */
+    public ByteBuffer readInput() throws ReflectiveOperationException {
+        Path path = (Path) Class.forName("InputFiles").getMethod("forDay", int.class).invoke(null, day);
+        MappedByteBuffer buffer = (MappedByteBuffer) Class.forName("InputFiles").getMethod("map", Path.class).invoke(null, path);
+        buffer.load();
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    public ByteBuffer generateInput(int size, long seed) throws ReflectiveOperationException {
+        List<String> lines = (List<String>) Class.forName("InputGenerators")
+                .getMethod("generateLines", int.class, int.class, long.class)
+                .invoke(null, day, size, seed);
+        return ByteBuffer.wrap(String.join("\n", lines).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parses from a fresh cursor over {@code input}, which is left as it was.
+     */
+    public Object parse(ByteBuffer input) {
+        Object inputCursor;
+        try {
+            inputCursor = cursor.newInstance(input.duplicate());
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Day " + day + " failed to open a cursor", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return invoke(parse, inputCursor);
+    }
+
+    public Object part1(Object input) {
+        return invoke(part1, input);
+    }
+
+    public Object part2(Object input) {
+        return invoke(part2, input);
+    }
+
+    private Object invoke(Method method, Object argument) {
+        try {
+            return method.invoke(solver, argument);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Day " + day + " failed in " + method.getName(), e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
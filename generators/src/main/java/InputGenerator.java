@@ -0,0 +1,9 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+public interface InputGenerator {
+    int day();
+
+    void generate(int size, Random random, Writer writer) throws IOException;
+}
@@ -0,0 +1,921 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class InputGenerators {
+    private static final Map<Integer, InputGenerator> GENERATORS = new TreeMap<>();
+
+    static {
+        register(new CommaSeparatedGenerator(6, 1, 5));
+        register(new CommaSeparatedGenerator(7, 0, 2000));
+        register(new DisplayGenerator());
+        register(new GridGenerator(9, random -> random.nextInt(4) == 0 ? '9' : (char) ('0' + random.nextInt(9))));
+        register(new BracesGenerator());
+        register(new OctopusGenerator());
+        register(new CaveGenerator());
+        register(new FoldingPaperGenerator());
+        register(new PolymerGenerator());
+        register(new GridGenerator(15, random -> (char) ('1' + random.nextInt(9))));
+        register(new PacketGenerator());
+        register(new TargetZoneGenerator());
+        register(new SnailNumberGenerator());
+        register(new ScannerGenerator());
+        register(new ImageGenerator());
+        register(new DiracDiceGenerator());
+        register(new RebootGenerator());
+        register(new AmphipodGenerator());
+        register(new MonadGenerator());
+        register(new GridGenerator(25, random -> ".>v".charAt(random.nextInt(3))));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: InputGenerators <day> <size> <seed> [output file]");
+            System.exit(1);
+        }
+        int day = Integer.parseInt(args[0]);
+        int size = Integer.parseInt(args[1]);
+        long seed = Long.parseLong(args[2]);
+        try (Writer writer = new BufferedWriter(args.length > 3
+                ? new FileWriter(args[3])
+                : new OutputStreamWriter(System.out), 1 << 16)) {
+            generate(day, size, seed, writer);
+        }
+    }
+
+    private InputGenerators() {
+    }
+
+    private static void register(InputGenerator generator) {
+        GENERATORS.put(generator.day(), generator);
+    }
+
+    public static void generate(int day, int size, long seed, Writer writer) throws IOException {
+        InputGenerator generator = GENERATORS.get(day);
+        if (generator == null) {
+            throw new IllegalArgumentException("No generator for day " + day);
+        }
+        generator.generate(size, new Random(seed), writer);
+    }
+
+    public static List<String> generateLines(int day, int size, long seed) {
+        StringWriter writer = new StringWriter();
+        try {
+            generate(day, size, seed, writer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Arrays.asList(writer.toString().split("\n"));
+    }
+
+    private static int nextInt(Random random, int from, int to) {
+        return from + random.nextInt(to - from + 1);
+    }
+
+    private interface CellGenerator {
+        char next(Random random);
+    }
+
+    private static class GridGenerator implements InputGenerator {
+        private final int day;
+        private final CellGenerator cellGenerator;
+
+        private GridGenerator(int day, CellGenerator cellGenerator) {
+            this.day = day;
+            this.cellGenerator = cellGenerator;
+        }
+
+        @Override
+        public int day() {
+            return day;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            char[] row = new char[size + 1];
+            row[size] = '\n';
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    row[j] = cellGenerator.next(random);
+                }
+                writer.write(row);
+            }
+        }
+    }
+
+    private static class CommaSeparatedGenerator implements InputGenerator {
+        private final int day;
+        private final int min;
+        private final int max;
+
+        private CommaSeparatedGenerator(int day, int min, int max) {
+            this.day = day;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int day() {
+            return day;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(Integer.toString(nextInt(random, min, max)));
+            }
+            writer.write('\n');
+        }
+    }
+
+    private static class DisplayGenerator implements InputGenerator {
+        private static final String[] DIGIT_SEGMENTS = {
+                "abcefg", "cf", "acdeg", "acdfg", "bcdf", "abdfg", "abdefg", "acf", "abcdefg", "abcdfg"
+        };
+
+        @Override
+        public int day() {
+            return 8;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            List<Character> wiring = new ArrayList<>(List.of('a', 'b', 'c', 'd', 'e', 'f', 'g'));
+            List<Integer> digits = new ArrayList<>(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                Collections.shuffle(wiring, random);
+                Collections.shuffle(digits, random);
+                line.setLength(0);
+                for (Integer digit : digits) {
+                    line.append(encode(digit, wiring, random)).append(' ');
+                }
+                line.append('|');
+                for (int j = 0; j < 4; j++) {
+                    line.append(' ').append(encode(random.nextInt(10), wiring, random));
+                }
+                writer.write(line.append('\n').toString());
+            }
+        }
+
+        private String encode(int digit, List<Character> wiring, Random random) {
+            List<Character> segments = new ArrayList<>();
+            for (char segment : DIGIT_SEGMENTS[digit].toCharArray()) {
+                segments.add(wiring.get(segment - 'a'));
+            }
+            Collections.shuffle(segments, random);
+            StringBuilder encoded = new StringBuilder();
+            segments.forEach(encoded::append);
+            return encoded.toString();
+        }
+    }
+
+    /**
+     * Lines stay at most {@value #MAX_DEPTH} brackets deep: a completion score is a base 5 number with a digit per
+     * missing closer, and deeper incomplete lines would overflow the {@code long} the solver scores them in.
+     */
+    private static class BracesGenerator implements InputGenerator {
+        private static final String OPENING_BRACES = "([{<";
+        private static final String CLOSING_BRACES = ")]}>";
+        private static final int MAX_DEPTH = 27;
+
+        @Override
+        public int day() {
+            return 10;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int[] openingBraces = new int[MAX_DEPTH];
+            for (int i = 0; i < size; i++) {
+                line.setLength(0);
+                int depth = 0;
+                int length = nextInt(random, 60, 110);
+                while (line.length() < length) {
+                    if (depth == 0 || (depth < openingBraces.length && random.nextInt(5) < 3)) {
+                        int brace = random.nextInt(4);
+                        openingBraces[depth++] = brace;
+                        line.append(OPENING_BRACES.charAt(brace));
+                    } else {
+                        line.append(CLOSING_BRACES.charAt(openingBraces[--depth]));
+                    }
+                }
+                if (random.nextBoolean()) {
+                    int expected = depth == 0 ? -1 : openingBraces[depth - 1];
+                    int wrongBrace = (expected + 1 + random.nextInt(3)) & 3;
+                    line.append(CLOSING_BRACES.charAt(wrongBrace));
+                } else if (depth == 0) {
+                    line.append(OPENING_BRACES.charAt(random.nextInt(4)));
+                }
+                writer.write(line.append('\n').toString());
+            }
+        }
+    }
+
+    /**
+     * Uniformly random grids almost never flash all at once, so part 2 would never finish. A grid built from two
+     * adjacent energy levels always cascades into a single total flash once the higher level reaches 10.
+     */
+    private static class OctopusGenerator implements InputGenerator {
+        @Override
+        public int day() {
+            return 11;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            char lowLevel = (char) ('0' + random.nextInt(9));
+            char[] row = new char[size + 1];
+            row[size] = '\n';
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    row[j] = i == 0 && j == 0 || random.nextBoolean() ? (char) (lowLevel + 1) : lowLevel;
+                }
+                writer.write(row);
+            }
+        }
+    }
+
+    private static class CaveGenerator implements InputGenerator {
+        @Override
+        public int day() {
+            return 12;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            List<String> smallCaves = new ArrayList<>();
+            List<String> bigCaves = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, size); i++) {
+                smallCaves.add("s" + i);
+            }
+            for (int i = 0; i < Math.max(1, size / 3); i++) {
+                bigCaves.add("B" + i);
+            }
+            Set<String> connections = new LinkedHashSet<>();
+            connections.add("start-" + smallCaves.get(0));
+            connections.add("start-" + bigCaves.get(0));
+            connections.add(smallCaves.get(smallCaves.size() - 1) + "-end");
+            connections.add(bigCaves.get(bigCaves.size() - 1) + "-end");
+            for (int i = 0; i < smallCaves.size(); i++) {
+                String smallCave = smallCaves.get(i);
+                connections.add(bigCaves.get(random.nextInt(bigCaves.size())) + "-" + smallCave);
+                if (i > 0) {
+                    connections.add(smallCaves.get(random.nextInt(i)) + "-" + smallCave);
+                }
+            }
+            List<String> shuffledConnections = new ArrayList<>(connections);
+            Collections.shuffle(shuffledConnections, random);
+            for (String connection : shuffledConnections) {
+                writer.write(connection);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static class FoldingPaperGenerator implements InputGenerator {
+        private static final int FOLDED_WIDTH = 40;
+        private static final int FOLDED_HEIGHT = 6;
+
+        @Override
+        public int day() {
+            return 13;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            List<int[]> foldsFromLast = new ArrayList<>();
+            long width = FOLDED_WIDTH;
+            long height = FOLDED_HEIGHT;
+            while (foldsFromLast.size() < 2 || width * height < 4L * size) {
+                boolean vertical = random.nextBoolean();
+                foldsFromLast.add(new int[]{vertical ? 0 : 1, (int) (vertical ? width : height)});
+                if (vertical) {
+                    width = width * 2 + 1;
+                } else {
+                    height = height * 2 + 1;
+                }
+            }
+
+            Set<Long> points = new LinkedHashSet<>();
+            for (int attempt = 0; points.size() < size && attempt < size * 4; attempt++) {
+                long x = random.nextInt(FOLDED_WIDTH);
+                long y = random.nextInt(FOLDED_HEIGHT);
+                for (int[] fold : foldsFromLast) {
+                    if (random.nextBoolean()) {
+                        if (fold[0] == 0) {
+                            x = 2L * fold[1] - x;
+                        } else {
+                            y = 2L * fold[1] - y;
+                        }
+                    }
+                }
+                points.add(x << 32 | y);
+            }
+            for (Long point : points) {
+                writer.write((point >>> 32) + "," + (point & 0xFFFFFFFFL) + "\n");
+            }
+            writer.write('\n');
+            for (int i = foldsFromLast.size() - 1; i >= 0; i--) {
+                int[] fold = foldsFromLast.get(i);
+                writer.write("fold along " + (fold[0] == 0 ? "x" : "y") + "=" + fold[1] + "\n");
+            }
+        }
+    }
+
+    private static class PolymerGenerator implements InputGenerator {
+        private static final String ELEMENTS = "BCFHKNOPSV";
+
+        @Override
+        public int day() {
+            return 14;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            StringBuilder template = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                template.append(ELEMENTS.charAt(random.nextInt(ELEMENTS.length())));
+            }
+            writer.write(template.append("\n\n").toString());
+            for (int i = 0; i < ELEMENTS.length(); i++) {
+                for (int j = 0; j < ELEMENTS.length(); j++) {
+                    writer.write("" + ELEMENTS.charAt(i) + ELEMENTS.charAt(j) + " -> "
+                            + ELEMENTS.charAt(random.nextInt(ELEMENTS.length())) + "\n");
+                }
+            }
+        }
+    }
+
+    private static class PacketGenerator implements InputGenerator {
+        private static final int MAX_OPERANDS = 8;
+        private static final int MAX_BIT_LENGTH = (1 << 15) - 1;
+
+        @Override
+        public int day() {
+            return 16;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            StringBuilder bits = new StringBuilder();
+            appendPacket(Math.max(1, size), random, bits);
+            while (bits.length() % 8 != 0) {
+                bits.append('0');
+            }
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < bits.length(); i += 4) {
+                hex.append(Character.toUpperCase(Character.forDigit(Integer.parseInt(bits.substring(i, i + 4), 2), 16)));
+            }
+            writer.write(hex.append('\n').toString());
+        }
+
+        private void appendPacket(int literals, Random random, StringBuilder bits) {
+            appendBinary(bits, random.nextInt(8), 3);
+            if (literals == 1) {
+                appendBinary(bits, 4, 3);
+                int value = random.nextInt(1 << 12);
+                appendBinary(bits, 1, 1);
+                appendBinary(bits, value >> 8, 4);
+                appendBinary(bits, 1, 1);
+                appendBinary(bits, (value >> 4) & 15, 4);
+                appendBinary(bits, 0, 1);
+                appendBinary(bits, value & 15, 4);
+                return;
+            }
+            int type;
+            int operands;
+            if (literals == 2 && random.nextInt(3) == 0) {
+                type = 5 + random.nextInt(3);
+                operands = 2;
+            } else {
+                type = random.nextInt(4) == 0 ? 1 + random.nextInt(3) : 0;
+                operands = Math.min(literals, nextInt(random, 2, MAX_OPERANDS));
+            }
+            StringBuilder operandBits = new StringBuilder();
+            int literalsLeft = literals;
+            for (int i = 0; i < operands; i++) {
+                int operandLiterals = i == operands - 1
+                        ? literalsLeft
+                        : 1 + random.nextInt(literalsLeft - (operands - i - 1));
+                appendPacket(operandLiterals, random, operandBits);
+                literalsLeft -= operandLiterals;
+            }
+            appendBinary(bits, type, 3);
+            if (operandBits.length() <= MAX_BIT_LENGTH && random.nextBoolean()) {
+                appendBinary(bits, 0, 1);
+                appendBinary(bits, operandBits.length(), 15);
+            } else {
+                appendBinary(bits, 1, 1);
+                appendBinary(bits, operands, 11);
+            }
+            bits.append(operandBits);
+        }
+
+        private void appendBinary(StringBuilder bits, int value, int length) {
+            for (int i = length - 1; i >= 0; i--) {
+                bits.append((value >> i & 1) == 1 ? '1' : '0');
+            }
+        }
+    }
+
+    private static class TargetZoneGenerator implements InputGenerator {
+        @Override
+        public int day() {
+            return 17;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            int scale = Math.max(10, size);
+            int xStart = nextInt(random, scale, scale * 2);
+            int xEnd = xStart + nextInt(random, scale / 4, scale / 2);
+            int yStart = -nextInt(random, scale, scale * 2);
+            int yEnd = yStart + nextInt(random, scale / 4, scale / 2);
+            writer.write("target area: x=" + xStart + ".." + xEnd + ", y=" + yStart + ".." + yEnd + "\n");
+        }
+    }
+
+    private static class SnailNumberGenerator implements InputGenerator {
+        private static final int MAX_DEPTH = 4;
+
+        @Override
+        public int day() {
+            return 18;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                line.setLength(0);
+                appendPair(1, random, line);
+                writer.write(line.append('\n').toString());
+            }
+        }
+
+        private void appendPair(int depth, Random random, StringBuilder line) {
+            line.append('[');
+            appendElement(depth, random, line);
+            line.append(',');
+            appendElement(depth, random, line);
+            line.append(']');
+        }
+
+        private void appendElement(int depth, Random random, StringBuilder line) {
+            if (depth < MAX_DEPTH && random.nextInt(5) < 3) {
+                appendPair(depth + 1, random, line);
+            } else {
+                line.append(random.nextInt(10));
+            }
+        }
+    }
+
+    /**
+     * Scanners sit on a jittered lattice and form a random spanning tree of face neighbours. Each tree edge gets
+     * beacons in the slab both scanners see, every scanner gets a few beacons only it can see, and the lattice
+     * spacing keeps every other pair of scanners from sharing beacons. Beacons whose squared distance to another
+     * beacon repeats an existing one are rejected, since the solver matches scanners by those distances.
+     */
+    private static class ScannerGenerator implements InputGenerator {
+        private static final int RANGE = 1000;
+        private static final int SPACING = 1700;
+        private static final int JITTER = 30;
+        private static final int PRIVATE_RANGE = 600;
+        private static final int MAX_NEIGHBOURS = 3;
+        private static final int OVERLAPPING_BEACONS = 12;
+        private static final int OWN_BEACONS = 8;
+        private static final int[][] DIRECTIONS = {
+                {1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}
+        };
+        private static final int[][] AXIS_PERMUTATIONS = {
+                {0, 1, 2}, {1, 2, 0}, {2, 0, 1}, {0, 2, 1}, {2, 1, 0}, {1, 0, 2}
+        };
+
+        private final List<int[]> scanners = new ArrayList<>();
+        private final List<List<int[]>> beaconsByScanner = new ArrayList<>();
+        private final Set<Long> quadraticDistances = new HashSet<>();
+
+        @Override
+        public int day() {
+            return 19;
+        }
+
+        @Override
+        public synchronized void generate(int size, Random random, Writer writer) throws IOException {
+            scanners.clear();
+            beaconsByScanner.clear();
+            quadraticDistances.clear();
+            List<int[]> cells = new ArrayList<>();
+            List<Integer> neighbours = new ArrayList<>();
+            Set<List<Integer>> occupiedCells = new HashSet<>();
+            cells.add(new int[]{0, 0, 0});
+            scanners.add(new int[]{0, 0, 0});
+            beaconsByScanner.add(new ArrayList<>());
+            neighbours.add(0);
+            occupiedCells.add(List.of(0, 0, 0));
+            addOwnBeacons(0, random);
+            while (scanners.size() < size) {
+                int parent = random.nextInt(scanners.size());
+                if (neighbours.get(parent) >= MAX_NEIGHBOURS) {
+                    continue;
+                }
+                int[] direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                int[] parentCell = cells.get(parent);
+                List<Integer> cell = List.of(parentCell[0] + direction[0], parentCell[1] + direction[1], parentCell[2] + direction[2]);
+                if (!occupiedCells.add(cell)) {
+                    continue;
+                }
+                int[] parentScanner = scanners.get(parent);
+                int[] scanner = new int[3];
+                int[] overlapFrom = new int[3];
+                int[] overlapTo = new int[3];
+                for (int axis = 0; axis < 3; axis++) {
+                    scanner[axis] = cell.get(axis) * SPACING + nextInt(random, -JITTER, JITTER);
+                    int range = direction[axis] == 0 ? PRIVATE_RANGE : RANGE;
+                    overlapFrom[axis] = Math.max(parentScanner[axis], scanner[axis]) - range;
+                    overlapTo[axis] = Math.min(parentScanner[axis], scanner[axis]) + range;
+                }
+                int id = scanners.size();
+                cells.add(new int[]{cell.get(0), cell.get(1), cell.get(2)});
+                scanners.add(scanner);
+                beaconsByScanner.add(new ArrayList<>());
+                neighbours.set(parent, neighbours.get(parent) + 1);
+                neighbours.add(1);
+                for (int i = 0; i < OVERLAPPING_BEACONS; i++) {
+                    addBeacon(overlapFrom, overlapTo, random, parent, id);
+                }
+                addOwnBeacons(id, random);
+            }
+
+            for (int id = 0; id < scanners.size(); id++) {
+                int[] scanner = scanners.get(id);
+                int[] axisPermutation = AXIS_PERMUTATIONS[random.nextInt(AXIS_PERMUTATIONS.length)];
+                int[] signs = {random.nextBoolean() ? 1 : -1, random.nextBoolean() ? 1 : -1, 1};
+                boolean oddPermutation = axisPermutation[0] == 0 && axisPermutation[1] == 2
+                        || axisPermutation[0] == 2 && axisPermutation[1] == 1
+                        || axisPermutation[0] == 1 && axisPermutation[1] == 0;
+                signs[2] = signs[0] * signs[1] * (oddPermutation ? -1 : 1);
+                if (id > 0) {
+                    writer.write('\n');
+                }
+                writer.write("--- scanner " + id + " ---\n");
+                List<int[]> beacons = new ArrayList<>(beaconsByScanner.get(id));
+                Collections.shuffle(beacons, random);
+                for (int[] beacon : beacons) {
+                    int[] relative = new int[3];
+                    for (int axis = 0; axis < 3; axis++) {
+                        relative[axis] = beacon[axis] - scanner[axis];
+                    }
+                    writer.write(signs[0] * relative[axisPermutation[0]] + ","
+                            + signs[1] * relative[axisPermutation[1]] + ","
+                            + signs[2] * relative[axisPermutation[2]] + "\n");
+                }
+            }
+        }
+
+        private void addOwnBeacons(int id, Random random) {
+            int[] scanner = scanners.get(id);
+            int[] from = new int[3];
+            int[] to = new int[3];
+            for (int axis = 0; axis < 3; axis++) {
+                from[axis] = scanner[axis] - PRIVATE_RANGE;
+                to[axis] = scanner[axis] + PRIVATE_RANGE;
+            }
+            for (int i = 0; i < OWN_BEACONS; i++) {
+                addBeacon(from, to, random, id);
+            }
+        }
+
+        private void addBeacon(int[] from, int[] to, Random random, int... visibleFrom) {
+            while (true) {
+                int[] beacon = {nextInt(random, from[0], to[0]), nextInt(random, from[1], to[1]), nextInt(random, from[2], to[2])};
+                Set<Long> newQuadraticDistances = new HashSet<>();
+                Set<int[]> neighbourBeacons = Collections.newSetFromMap(new IdentityHashMap<>());
+                boolean unique = true;
+                for (int id : visibleFrom) {
+                    for (int[] other : beaconsByScanner.get(id)) {
+                        if (!neighbourBeacons.add(other)) {
+                            continue;
+                        }
+                        long quadraticDistance = quadraticDistance(beacon, other);
+                        if (quadraticDistances.contains(quadraticDistance) || !newQuadraticDistances.add(quadraticDistance)) {
+                            unique = false;
+                        }
+                    }
+                }
+                if (unique) {
+                    quadraticDistances.addAll(newQuadraticDistances);
+                    for (int id : visibleFrom) {
+                        beaconsByScanner.get(id).add(beacon);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private long quadraticDistance(int[] first, int[] second) {
+            long distance = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                distance += (long) (first[axis] - second[axis]) * (first[axis] - second[axis]);
+            }
+            return distance;
+        }
+    }
+
+    private static class ImageGenerator implements InputGenerator {
+        @Override
+        public int day() {
+            return 20;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            char[] algorithm = new char[513];
+            for (int i = 0; i < 512; i++) {
+                algorithm[i] = random.nextBoolean() ? '#' : '.';
+            }
+            if (algorithm[0] == '#') {
+                algorithm[511] = '.';
+            }
+            algorithm[512] = '\n';
+            writer.write(algorithm);
+            writer.write('\n');
+            new GridGenerator(day(), cellRandom -> cellRandom.nextBoolean() ? '#' : '.').generate(size, random, writer);
+        }
+    }
+
+    private static class DiracDiceGenerator implements InputGenerator {
+        @Override
+        public int day() {
+            return 21;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            writer.write("Player 1 starting position: " + nextInt(random, 1, 10) + "\n");
+            writer.write("Player 2 starting position: " + nextInt(random, 1, 10) + "\n");
+        }
+    }
+
+    private static class RebootGenerator implements InputGenerator {
+        private static final int INITIALIZATION_RULES = 20;
+        private static final int INITIALIZATION_LIMIT = 50;
+        private static final int REBOOT_LIMIT = 100_000;
+
+        @Override
+        public int day() {
+            return 22;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            for (int i = 0; i < size; i++) {
+                boolean initialization = i < Math.min(INITIALIZATION_RULES, size / 2 + 1);
+                String operation = i == 0 || random.nextInt(5) < 3 ? "on" : "off";
+                String[] ranges = new String[3];
+                int outsideAxis = initialization ? -1 : random.nextInt(ranges.length);
+                for (int axis = 0; axis < ranges.length; axis++) {
+                    ranges[axis] = initialization ? range(-INITIALIZATION_LIMIT, INITIALIZATION_LIMIT, random)
+                            : axis == outsideAxis ? outsideRange(random)
+                            : range(-REBOOT_LIMIT, REBOOT_LIMIT, random);
+                }
+                writer.write(operation + " x=" + ranges[0] + ",y=" + ranges[1] + ",z=" + ranges[2] + "\n");
+            }
+        }
+
+        private String outsideRange(Random random) {
+            String range = range(INITIALIZATION_LIMIT + 1, REBOOT_LIMIT, random);
+            if (random.nextBoolean()) {
+                return range;
+            }
+            String[] bounds = range.split("\\.\\.");
+            return "-" + bounds[1] + "..-" + bounds[0];
+        }
+
+        private String range(int limitFrom, int limitTo, Random random) {
+            int from = nextInt(random, limitFrom, limitTo);
+            int to = Math.min(limitTo, from + random.nextInt((limitTo - limitFrom) / 4));
+            return from + ".." + to;
+        }
+    }
+
+    /**
+     * The burrow always has the puzzle's shape, so {@code size} is ignored. Shuffles where either part has no
+     * solution are drawn again: part 2 unfolds the burrow with two fixed room rows, and some placements leave
+     * amphipods that can never reach their rooms in one of the two burrows.
+     */
+    private static class AmphipodGenerator implements InputGenerator {
+        private static final String[] UNFOLDED_ROOM_ROWS = {"DCBA", "DBAC"};
+        private static final int HALLWAY_LENGTH = 11;
+        private static final int[] HALLWAY_STOPS = {0, 1, 3, 5, 7, 9, 10};
+
+        @Override
+        public int day() {
+            return 23;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            List<Character> amphipods = new ArrayList<>(List.of('A', 'A', 'B', 'B', 'C', 'C', 'D', 'D'));
+            do {
+                Collections.shuffle(amphipods, random);
+            } while (!solvable(amphipods.subList(0, 4), amphipods.subList(4, 8)));
+            writer.write("#############\n");
+            writer.write("#...........#\n");
+            writer.write("###" + amphipods.get(0) + "#" + amphipods.get(1) + "#" + amphipods.get(2) + "#" + amphipods.get(3) + "###\n");
+            writer.write("  #" + amphipods.get(4) + "#" + amphipods.get(5) + "#" + amphipods.get(6) + "#" + amphipods.get(7) + "#\n");
+            writer.write("  #########\n");
+        }
+
+        private static boolean solvable(List<Character> topRow, List<Character> bottomRow) {
+            String top = join(topRow);
+            String bottom = join(bottomRow);
+            return solvable(burrow(top, bottom), 2, new HashSet<>())
+                    && solvable(burrow(top, UNFOLDED_ROOM_ROWS[0], UNFOLDED_ROOM_ROWS[1], bottom), 4, new HashSet<>());
+        }
+
+        private static String join(List<Character> row) {
+            StringBuilder joined = new StringBuilder();
+            row.forEach(joined::append);
+            return joined.toString();
+        }
+
+        /**
+         * The hallway followed by every room from its door down.
+         */
+        private static char[] burrow(String... roomRows) {
+            char[] burrow = new char[HALLWAY_LENGTH + 4 * roomRows.length];
+            Arrays.fill(burrow, 0, HALLWAY_LENGTH, '.');
+            for (int room = 0; room < 4; room++) {
+                for (int row = 0; row < roomRows.length; row++) {
+                    burrow[HALLWAY_LENGTH + room * roomRows.length + row] = roomRows[row].charAt(room);
+                }
+            }
+            return burrow;
+        }
+
+        /**
+         * Depth first search for any sequence of moves that sorts the burrow, ignoring energy. Moving an amphipod
+         * from the hallway into its own room never blocks another one, so such a move is taken alone whenever one
+         * is possible. {@code failed} holds the burrows already known to be dead ends.
+         */
+        private static boolean solvable(char[] burrow, int depth, Set<String> failed) {
+            String key = new String(burrow);
+            if (failed.contains(key)) {
+                return false;
+            }
+            boolean sorted = true;
+            for (int room = 0; room < 4 && sorted; room++) {
+                for (int row = 0; row < depth; row++) {
+                    sorted &= burrow[slot(room, row, depth)] == 'A' + room;
+                }
+            }
+            if (sorted) {
+                return true;
+            }
+            for (int position = 0; position < HALLWAY_LENGTH; position++) {
+                char amphipod = burrow[position];
+                if (amphipod == '.') {
+                    continue;
+                }
+                int room = amphipod - 'A';
+                if (onlyHolds(burrow, room, amphipod, depth) && hallwayClear(burrow, position, door(room))) {
+                    int row = depth - 1;
+                    while (burrow[slot(room, row, depth)] != '.') {
+                        row--;
+                    }
+                    burrow[position] = '.';
+                    burrow[slot(room, row, depth)] = amphipod;
+                    boolean solvable = solvable(burrow, depth, failed);
+                    burrow[slot(room, row, depth)] = '.';
+                    burrow[position] = amphipod;
+                    if (!solvable) {
+                        failed.add(key);
+                    }
+                    return solvable;
+                }
+            }
+            for (int room = 0; room < 4; room++) {
+                if (onlyHolds(burrow, room, (char) ('A' + room), depth)) {
+                    continue;
+                }
+                int row = 0;
+                while (burrow[slot(room, row, depth)] == '.') {
+                    row++;
+                }
+                char amphipod = burrow[slot(room, row, depth)];
+                for (int stop : HALLWAY_STOPS) {
+                    if (burrow[stop] != '.' || !hallwayClear(burrow, door(room), stop)) {
+                        continue;
+                    }
+                    burrow[slot(room, row, depth)] = '.';
+                    burrow[stop] = amphipod;
+                    boolean solvable = solvable(burrow, depth, failed);
+                    burrow[stop] = '.';
+                    burrow[slot(room, row, depth)] = amphipod;
+                    if (solvable) {
+                        return true;
+                    }
+                }
+            }
+            failed.add(key);
+            return false;
+        }
+
+        private static boolean onlyHolds(char[] burrow, int room, char amphipod, int depth) {
+            for (int row = 0; row < depth; row++) {
+                char occupant = burrow[slot(room, row, depth)];
+                if (occupant != '.' && occupant != amphipod) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Whether nothing stands in the hallway between {@code from}, excluded, and {@code to}.
+         */
+        private static boolean hallwayClear(char[] burrow, int from, int to) {
+            int step = Integer.signum(to - from);
+            for (int position = from + step; position != to + step; position += step) {
+                if (burrow[position] != '.') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int door(int room) {
+            return 2 + 2 * room;
+        }
+
+        private static int slot(int room, int row, int depth) {
+            return HALLWAY_LENGTH + room * depth + row;
+        }
+    }
+
+    private static class MonadGenerator implements InputGenerator {
+        private static final int MAX_DIGITS = 18;
+
+        @Override
+        public int day() {
+            return 24;
+        }
+
+        @Override
+        public void generate(int size, Random random, Writer writer) throws IOException {
+            int pairs = Math.max(1, Math.min(MAX_DIGITS, size <= 0 ? 14 : size) / 2);
+            List<Boolean> pushes = new ArrayList<>();
+            int open = 0;
+            for (int i = 0; i < pairs * 2; i++) {
+                boolean push = open == 0 || (pairs * 2 - i > open && random.nextBoolean());
+                pushes.add(push);
+                open += push ? 1 : -1;
+            }
+            Map<Integer, Integer> pushedAddY = new HashMap<>();
+            List<Integer> openDigits = new ArrayList<>();
+            for (int digit = 0; digit < pushes.size(); digit++) {
+                int addY = nextInt(random, 1, 16);
+                int addX;
+                if (pushes.get(digit)) {
+                    addX = nextInt(random, 10, 16);
+                    openDigits.add(digit);
+                    pushedAddY.put(digit, addY);
+                } else {
+                    int pushedDigit = openDigits.remove(openDigits.size() - 1);
+                    addX = nextInt(random, -8, 8) - pushedAddY.get(pushedDigit);
+                }
+                writeBlock(writer, pushes.get(digit) ? 1 : 26, addX, addY);
+            }
+        }
+
+        private void writeBlock(Writer writer, int divZ, int addX, int addY) throws IOException {
+            writer.write("inp w\nmul x 0\nadd x z\nmod x 26\n");
+            writer.write("div z " + divZ + "\n");
+            writer.write("add x " + addX + "\n");
+            writer.write("eql x w\neql x 0\nmul y 0\nadd y 25\nmul y x\nadd y 1\nmul z y\nmul y 0\nadd y w\n");
+            writer.write("add y " + addY + "\n");
+            writer.write("mul y x\nadd z y\n");
+        }
+    }
+}
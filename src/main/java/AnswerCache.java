@@ -0,0 +1,169 @@
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Answers on disk, one file per (day, part, solver version, solver fingerprint, SHA-256 of the input bytes).
+ * Reading an answer touches its file, and writing one evicts the least recently used files until the directory
+ * fits the size cap.
+ * <p>
+ * The fingerprint hashes the bytecode of the solver class and its nested classes, so recompiling a changed day
+ * stops hitting its old answers. Changes outside the day's file that alter its answers, e.g. to a shared grid
+ * class, are not seen by the fingerprint and need a bump of {@link Solver#version()}.
+ */
+public class AnswerCache {
+    public static final String DIRECTORY_VARIABLE = "AOC_CACHE_DIR";
+    public static final long DEFAULT_MAX_BYTES = 16L << 20;
+    private static final String SUFFIX = ".answer";
+    private static final int FINGERPRINT_LENGTH = 12;
+    private static final ConcurrentMap<Class<?>, String> FINGERPRINTS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public AnswerCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Cache in the {@value #DIRECTORY_VARIABLE} directory, or empty when the variable is not set.
+     */
+    public static Optional<AnswerCache> fromEnvironment() {
+        String fromEnvironment = System.getenv(DIRECTORY_VARIABLE);
+        if (fromEnvironment == null || fromEnvironment.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(new AnswerCache(Paths.get(fromEnvironment), DEFAULT_MAX_BYTES));
+    }
+
+    public Key key(Solver<?> solver, ByteBuffer input) {
+        return new Key(solver.day(), solver.version(), FINGERPRINTS.computeIfAbsent(solver.getClass(), AnswerCache::fingerprint), sha256(input));
+    }
+
+    public Optional<String> get(Key key, int part) {
+        Path file = directory.resolve(key.fileName(part));
+        try {
+            String answer = Files.readString(file, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(answer);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void put(Key key, int part, String answer) {
+        try {
+            Files.createDirectories(directory);
+            Path tmpFile = Files.createTempFile(directory, key.fileName(part), ".tmp");
+            Files.writeString(tmpFile, answer, StandardCharsets.UTF_8);
+            Files.move(tmpFile, directory.resolve(key.fileName(part)), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void evict() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(AnswerCache::lastModified).reversed())
+                    .collect(Collectors.toList());
+        }
+        long totalBytes = 0;
+        for (Path entry : entries) {
+            totalBytes += Files.size(entry);
+            if (totalBytes > maxBytes) {
+                Files.deleteIfExists(entry);
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String sha256(ByteBuffer input) {
+        MessageDigest digest = sha256();
+        digest.update(input.duplicate());
+        return hex(digest.digest());
+    }
+
+    private static String fingerprint(Class<?> solverClass) {
+        MessageDigest digest = sha256();
+        addClassBytes(digest, solverClass);
+        return hex(digest.digest()).substring(0, FINGERPRINT_LENGTH);
+    }
+
+    private static void addClassBytes(MessageDigest digest, Class<?> type) {
+        String resource = type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class";
+        try (InputStream classBytes = type.getResourceAsStream(resource)) {
+            if (classBytes == null) {
+                throw new IllegalStateException("No bytecode found for " + type.getName());
+            }
+            digest.update(classBytes.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Class<?>[] nestedClasses = type.getDeclaredClasses();
+        Arrays.sort(nestedClasses, Comparator.comparing(Class::getName));
+        for (Class<?> nestedClass : nestedClasses) {
+            addClassBytes(digest, nestedClass);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    @Value
+    public static class Key {
+        int day;
+        int solverVersion;
+        String solverFingerprint;
+        String inputHash;
+
+        public String fileName(int part) {
+            return day + "-" + part + "-v" + solverVersion + "-" + solverFingerprint + "-" + inputHash + SUFFIX;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves many inputs of one day in a single JVM and prints a tab separated line per input as soon as it is
+ * solved: {@code file, part 1, part 2, wall ms}, or {@code file, ERROR, message}. The inputs are the files of a
+ * directory, or the lines of a manifest file with paths relative to the manifest.
+ * <pre>
+ * BatchRunner &lt;day&gt; &lt;directory|manifest&gt; [--threads=N] [--in-flight=N] [--cache=DIR]
+ * </pre>
+ * Every input goes through the registered solver instance, so the JIT keeps its warmed up code and the days'
+ * per-thread scratch buffers are reused between inputs. At most {@code --in-flight} inputs are queued or
+ * running at once; listing further inputs waits until one of them is done.
+ */
+public class BatchRunner {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchRunner <day> <directory|manifest> [--threads=N] [--in-flight=N] [--cache=DIR]");
+            System.exit(1);
+        }
+        Solver<?> solver = Solvers.forDay(Integer.parseInt(args[0]));
+        Path source = Paths.get(args[1]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int inFlight = -1;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--threads=")) {
+                threads = Integer.parseInt(args[i].substring("--threads=".length()));
+            } else if (args[i].startsWith("--in-flight=")) {
+                inFlight = Integer.parseInt(args[i].substring("--in-flight=".length()));
+            } else if (args[i].startsWith("--cache=")) {
+                SolverRunner.setAnswerCache(new AnswerCache(Paths.get(args[i].substring("--cache=".length())), AnswerCache.DEFAULT_MAX_BYTES));
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+        new BatchRunner(solver, threads, inFlight > 0 ? inFlight : threads * 2).run(source);
+    }
+
+    private final Solver<?> solver;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final AtomicInteger solved = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public BatchRunner(Solver<?> solver, int threads, int maxInFlight) {
+        this.solver = solver;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public void run(Path source) throws IOException, InterruptedException {
+        long startTs = System.nanoTime();
+        try (Stream<Path> inputs = inputs(source)) {
+            for (Path input : (Iterable<Path>) inputs::iterator) {
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        solve(input);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        long millis = Duration.ofNanos(System.nanoTime() - startTs).toMillis();
+        System.err.println("Day - " + solver.day() + ", solved - " + solved + ", failed - " + failed
+                + ", total time took - " + millis + " ms, " + String.format("%.1f", solved.get() * 1000.0 / Math.max(1, millis)) + " inputs/s");
+    }
+
+    private void solve(Path input) {
+        String line;
+        try {
+            SolverRunner.DayResult result = SolverRunner.readAndSolve(solver, input);
+            solved.incrementAndGet();
+            line = input + "\t" + oneLine(result.getPart1()) + "\t" + oneLine(result.getPart2())
+                    + "\t" + String.format("%.3f", result.wallNanos() / 1_000_000.0);
+        } catch (IOException | RuntimeException | Error e) {
+            failed.incrementAndGet();
+            line = input + "\tERROR\t" + e;
+        }
+        synchronized (System.out) {
+            System.out.println(line);
+        }
+    }
+
+    private static String oneLine(String answer) {
+        return answer.replace("\n", "\\n");
+    }
+
+    private static Stream<Path> inputs(Path source) throws IOException {
+        if (Files.isDirectory(source)) {
+            return Files.list(source).filter(Files::isRegularFile).sorted();
+        }
+        Path directory = source.toAbsolutePath().getParent();
+        List<Path> inputs = Files.readAllLines(source).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .map(directory::resolve)
+                .collect(Collectors.toList());
+        return inputs.stream();
+    }
+}
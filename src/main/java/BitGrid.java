@@ -0,0 +1,54 @@
+import java.util.Arrays;
+
+/**
+ * Grid of on/off cells packed into a {@code long[]}. Every row starts on a fresh word, so row strips processed
+ * in parallel never write to the same word.
+ */
+public class BitGrid extends Grid {
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public BitGrid(int height, int width, boolean wrapping) {
+        super(height, width, wrapping);
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.words = new long[height * wordsPerRow];
+    }
+
+    public boolean get(int index) {
+        return get(index / width, index % width);
+    }
+
+    public boolean get(int row, int column) {
+        return (words[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    public void set(int index, boolean value) {
+        set(index / width, index % width, value);
+    }
+
+    public void set(int row, int column, boolean value) {
+        int word = row * wordsPerRow + (column >>> 6);
+        if (value) {
+            words[word] |= 1L << column;
+        } else {
+            words[word] &= ~(1L << column);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    @Override
+    protected void appendCell(StringBuilder sb, int index) {
+        sb.append(get(index) ? '#' : '.');
+    }
+}
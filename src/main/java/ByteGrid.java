@@ -0,0 +1,95 @@
+import java.util.Arrays;
+
+/**
+ * Grid of small values (digits or raw input characters) in one {@code byte[]}.
+ */
+public class ByteGrid extends Grid {
+    private final byte[] cells;
+
+    public ByteGrid(int height, int width, boolean wrapping) {
+        this(height, width, wrapping, new byte[height * width]);
+    }
+
+    private ByteGrid(int height, int width, boolean wrapping, byte[] cells) {
+        super(height, width, wrapping);
+        this.cells = cells;
+    }
+
+    public static ByteGrid of(int[][] rows) {
+        ByteGrid grid = new ByteGrid(rows.length, rows.length == 0 ? 0 : rows[0].length, false);
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < grid.width; column++) {
+                grid.set(row, column, rows[row][column]);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Reads the remaining non-blank lines of digits, one row per line.
+     */
+    public static ByteGrid parseDigits(InputCursor cursor, boolean wrapping) {
+        return parse(cursor, wrapping, '0');
+    }
+
+    /**
+     * Reads the remaining non-blank lines keeping every character as is.
+     */
+    public static ByteGrid parseCharacters(InputCursor cursor, boolean wrapping) {
+        return parse(cursor, wrapping, 0);
+    }
+
+    private static ByteGrid parse(InputCursor cursor, boolean wrapping, int base) {
+        int width = cursor.nextLineLength();
+        byte[] cells = new byte[Math.max(width, 16) * 16];
+        int height = 0;
+        while (cursor.hasNext()) {
+            if (cursor.nextLineLength() != width) {
+                throw new IllegalArgumentException("Row " + height + " is not " + width + " cells wide");
+            }
+            if ((height + 1) * width > cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(cells.length * 2, (height + 1) * width));
+            }
+            cursor.nextToken();
+            for (int column = 0; column < width; column++) {
+                cells[height * width + column] = (byte) (cursor.tokenByte(column) - base);
+            }
+            height++;
+        }
+        return new ByteGrid(height, width, wrapping, Arrays.copyOf(cells, height * width));
+    }
+
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public int get(int row, int column) {
+        return cells[index(row, column)];
+    }
+
+    public void set(int index, int value) {
+        cells[index] = (byte) value;
+    }
+
+    public void set(int row, int column, int value) {
+        cells[index(row, column)] = (byte) value;
+    }
+
+    public int increment(int index) {
+        return ++cells[index];
+    }
+
+    public void fill(int value) {
+        Arrays.fill(cells, (byte) value);
+    }
+
+    public ByteGrid copy() {
+        return new ByteGrid(height, width, wrapping, cells.clone());
+    }
+
+    @Override
+    protected void appendCell(StringBuilder sb, int index) {
+        int value = cells[index];
+        sb.append(value >= 0 && value <= 9 ? (char) ('0' + value) : (char) value);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Packs grid and space coordinates into a single {@code long}, so points can live in primitive collections
+ * such as {@link LongSet} and {@link LongLongMap}. 2D points keep full {@code int} range; 3D points keep
+ * 21 signed bits per axis, i.e. every axis must stay within +-{@value #MAX_3D}.
+ */
+public final class Coordinates {
+    public static final int MAX_3D = (1 << 20) - 1;
+
+    private static final int BITS_3D = 21;
+    private static final long MASK_3D = (1L << BITS_3D) - 1;
+
+    private Coordinates() {
+    }
+
+    public static long pack(int x, int y) {
+        return (long) x << 32 | y & 0xFFFFFFFFL;
+    }
+
+    public static int x(long point) {
+        return (int) (point >> 32);
+    }
+
+    public static int y(long point) {
+        return (int) point;
+    }
+
+    public static long pack3(int x, int y, int z) {
+        if (Math.abs(x) > MAX_3D || Math.abs(y) > MAX_3D || Math.abs(z) > MAX_3D) {
+            throw new IllegalArgumentException("Point " + x + "," + y + "," + z + " does not fit into 21 bits per axis");
+        }
+        return (x & MASK_3D) << (2 * BITS_3D) | (y & MASK_3D) << BITS_3D | z & MASK_3D;
+    }
+
+    public static int x3(long point) {
+        return (int) (point << 1 >> 43);
+    }
+
+    public static int y3(long point) {
+        return (int) (point << 22 >> 43);
+    }
+
+    public static int z3(long point) {
+        return (int) (point << 43 >> 43);
+    }
+
+    public static long add3(long first, long second) {
+        return pack3(x3(first) + x3(second), y3(first) + y3(second), z3(first) + z3(second));
+    }
+
+    public static long minus3(long first, long second) {
+        return pack3(x3(first) - x3(second), y3(first) - y3(second), z3(first) - z3(second));
+    }
+
+    public static int manhattanDistance3(long first, long second) {
+        return Math.abs(x3(first) - x3(second)) + Math.abs(y3(first) - y3(second)) + Math.abs(z3(first) - z3(second));
+    }
+
+    public static long quadraticDistance3(long first, long second) {
+        long dx = x3(first) - x3(second);
+        long dy = y3(first) - y3(second);
+        long dz = z3(first) - z3(second);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public static String toString3(long point) {
+        return x3(point) + "," + y3(point) + "," + z3(point);
+    }
+}
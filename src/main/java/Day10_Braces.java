@@ -1,104 +1,482 @@
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.Stack;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+public class Day10_Braces implements Solver<Day10_Braces.NavigationLog> {
+    private static final int CHUNK_BYTES = 1 << 20;
 
-public class Day10_Braces {
+    /**
+     * {@code --tail [--poll-millis=N]} follows the input file as lines are appended to it, printing the running
+     * scores whenever it grew, until the process is stopped; the optional other argument is the input file.
+     */
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/10.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
-
-            List<String> lines = br.lines().collect(Collectors.toList());
-
-            BracesManager bracesManager = new BracesManager(lines);
-
-            System.out.println(bracesManager.getCompletionScore());
-        }
-    }
-
-    private static class BracesManager {
-        private static final Map<String, Integer> ERROR_SCORES = Map.of(
-                ")", 3,
-                "]", 57,
-                "}", 1197,
-                ">", 25137
-        );
-        private static final Map<String, Integer> COMPLETION_SCORES = Map.of(
-                ")", 1,
-                "]", 2,
-                "}", 3,
-                ">", 4
-        );
-
-        private static final Set<String> OPENING_BRACES = Set.of(
-                "(", "[", "{", "<"
-        );
-
-        private static final Map<String, String> MATCHING_BRACES = Map.of(
-                "(", ")",
-                "[", "]",
-                "{", "}",
-                "<", ">"
-        );
-
-
-        private final List<String> foundErrorBraces = new ArrayList<>();
-        private final List<List<String>> completedLines = new ArrayList<>();
-
-        public BracesManager(Collection<String> lines) {
-            lines.stream()
-                    .filter(Predicate.not(String::isBlank))
-                    .forEach(this::validateBraces);
-        }
-
-        private void validateBraces(String line) {
-            Stack<String> openingBraces = new Stack<>();
-            for (String brace : line.split("")) {
-                if (OPENING_BRACES.contains(brace)) {
-                    openingBraces.push(brace);
-                } else {
-                    if (openingBraces.isEmpty() || !MATCHING_BRACES.get(openingBraces.pop()).equals(brace)) {
-                        foundErrorBraces.add(brace);
-                        return;
+        List<String> options = Arrays.asList(args);
+        String[] inputArgs = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+        if (!options.contains("--tail")) {
+            SolverRunner.run(new Day10_Braces(), inputArgs);
+            return;
+        }
+        long pollMillis = options.stream()
+                .filter(arg -> arg.startsWith("--poll-millis="))
+                .mapToLong(arg -> Long.parseLong(arg.substring("--poll-millis=".length())))
+                .findFirst()
+                .orElse(1000);
+        tail(inputArgs.length > 0 ? Paths.get(inputArgs[0]) : InputFiles.forDay(10), pollMillis);
+    }
+
+    /**
+     * Reads what was appended to the file whenever its directory reports a change, and at least every
+     * {@code pollMillis} in case a change went unreported.
+     */
+    static void tail(Path path, long pollMillis) throws IOException, InterruptedException {
+        LogTail tail = new LogTail(path);
+        try (WatchService watcher = path.getFileSystem().newWatchService()) {
+            path.toAbsolutePath().getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                if (tail.poll()) {
+                    RunningMedian completionScores = tail.getCompletionScores();
+                    System.out.println("Bytes - " + tail.getPosition() + ", error score - " + tail.getErrorScore()
+                            + ", incomplete lines - " + completionScores.size()
+                            + ", median completion score - " + (completionScores.size() > 0 ? completionScores.median() : "-"));
+                }
+                WatchKey key = watcher.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        }
+    }
+
+    @Override
+    public int day() {
+        return 10;
+    }
+
+    @Override
+    public NavigationLog parse(List<String> lines) {
+        return parse(InputCursor.of(lines));
+    }
+
+    @Override
+    public NavigationLog parse(InputCursor cursor) {
+        return new NavigationLog(cursor.slice(cursor.position(), cursor.limit()));
+    }
+
+    @Override
+    public Object part1(NavigationLog log) {
+        return log.validation().getErrorScore();
+    }
+
+    @Override
+    public Object part2(NavigationLog log) {
+        LineValidation validation = log.validation();
+        return Instrumentation.measure("completion score", validation::medianCompletionScore);
+    }
+
+    /**
+     * Validates line aligned chunks of at least {@value #CHUNK_BYTES} bytes in parallel, each with its own
+     * validator, and joins their error totals and completion scores.
+     */
+    static LineValidation validate(ByteBuffer lines) {
+        int from = lines.position();
+        int size = lines.limit() - from;
+        int chunks = (int) Math.max(1, Math.min(size / CHUNK_BYTES, ForkJoinPool.getCommonPoolParallelism() * 4L));
+        int[] boundaries = new int[chunks + 1];
+        boundaries[0] = from;
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            boundaries[chunk] = lineStart(lines, Math.max(boundaries[chunk - 1], from + (int) ((long) size * chunk / chunks)));
+        }
+        boundaries[chunks] = lines.limit();
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    BracketValidator validator = new BracketValidator(boundaries[chunk] - from);
+                    validator.accept(lines, boundaries[chunk], boundaries[chunk + 1]);
+                    validator.endLine();
+                    return new LineValidation(validator.getErrorScore(), validator.getCompletionScores());
+                })
+                .reduce(LineValidation::merge)
+                .orElseThrow();
+    }
+
+    private static int lineStart(ByteBuffer lines, int position) {
+        while (position < lines.limit() && lines.get(position - 1) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * The {@code k}-th smallest score, partitioning around the median of three until only it is left.
+     */
+    private static long select(long[] scores, int k) {
+        int from = 0;
+        int to = scores.length - 1;
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            long pivot = medianOfThree(scores[from], scores[middle], scores[to]);
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (scores[i] < pivot) {
+                    i++;
+                }
+                while (scores[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long swap = scores[i];
+                    scores[i++] = scores[j];
+                    scores[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                to = j;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                return scores[k];
+            }
+        }
+        return scores[k];
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /**
+     * The raw bytes of the lines. They are validated on the first call of either part, and both parts share
+     * that one validation.
+     */
+    static class NavigationLog {
+        private final ByteBuffer lines;
+        private LineValidation validation;
+
+        NavigationLog(ByteBuffer lines) {
+            this.lines = lines;
+        }
+
+        synchronized LineValidation validation() {
+            if (validation == null) {
+                validation = Instrumentation.measure("validate lines", () -> validate(lines));
+            }
+            return validation;
+        }
+    }
+
+    @Value
+    static class LineValidation {
+        long errorScore;
+        long[] completionScores;
+
+        LineValidation merge(LineValidation other) {
+            long[] scores = Arrays.copyOf(completionScores, completionScores.length + other.completionScores.length);
+            System.arraycopy(other.completionScores, 0, scores, completionScores.length, other.completionScores.length);
+            return new LineValidation(errorScore + other.errorScore, scores);
+        }
+
+        /**
+         * Middle completion score by quickselect in O(n), over a copy of the scores.
+         */
+        long medianCompletionScore() {
+            return select(completionScores.clone(), completionScores.length / 2);
+        }
+    }
+
+    /**
+     * Validates lines of brackets fed as raw bytes, in pieces of any size: a line ends at its {@code '\n'} or at
+     * {@link #endLine()}. Every byte is classified through 256-entry tables, the closing brackets still expected
+     * are kept on a reusable {@code byte[]} stack, and a corrupted line adds its error score while an incomplete
+     * one appends its completion score, so validating allocates nothing but the growth of the stack and of the
+     * completion scores.
+     */
+    static class BracketValidator {
+        private static final byte[] CLOSERS = new byte[256];
+        private static final int[] ERROR_SCORES = new int[256];
+        private static final int[] COMPLETION_SCORES = new int[256];
+
+        static {
+            String openers = "([{<";
+            String closers = ")]}>";
+            int[] errorScores = {3, 57, 1197, 25137};
+            for (int k = 0; k < openers.length(); k++) {
+                CLOSERS[openers.charAt(k)] = (byte) closers.charAt(k);
+                ERROR_SCORES[closers.charAt(k)] = errorScores[k];
+                COMPLETION_SCORES[closers.charAt(k)] = k + 1;
+            }
+        }
+
+        private byte[] expectedClosers = new byte[128];
+        private long offset;
+        private long lineStart;
+        private int depth;
+        private boolean corrupted;
+        private long errorScore;
+        private long[] completionScores = new long[64];
+        private int completions;
+
+        /**
+         * Starts counting input offsets, which name the lines whose completion score overflows, at {@code offset}.
+         */
+        BracketValidator(long offset) {
+            this.offset = offset;
+            this.lineStart = offset;
+        }
+
+        BracketValidator() {
+            this(0);
+        }
+
+        void accept(ByteBuffer buffer, int from, int to) {
+            long shift = offset - from;
+            for (int position = from; position < to; position++) {
+                byte b = buffer.get(position);
+                if (b == '\n') {
+                    endLine();
+                    lineStart = shift + position + 1;
+                } else if (!corrupted) {
+                    accept(b);
+                }
+            }
+            offset = shift + to;
+        }
+
+        private void accept(byte b) {
+            byte closer = CLOSERS[b & 0xFF];
+            if (closer != 0) {
+                if (depth == expectedClosers.length) {
+                    expectedClosers = Arrays.copyOf(expectedClosers, depth * 2);
+                }
+                expectedClosers[depth++] = closer;
+                return;
+            }
+            int bracketErrorScore = ERROR_SCORES[b & 0xFF];
+            if (bracketErrorScore != 0 && (depth == 0 || expectedClosers[--depth] != b)) {
+                errorScore += bracketErrorScore;
+                corrupted = true;
+            }
+        }
+
+        /**
+         * Ends the current line, scoring it if it is incomplete. A completion score beyond {@code long} is rejected
+         * with the input offset the line starts at.
+         */
+        void endLine() {
+            if (!corrupted && depth > 0) {
+                long score = 0;
+                try {
+                    for (int k = depth - 1; k >= 0; k--) {
+                        score = Math.addExact(Math.multiplyExact(score, 5), COMPLETION_SCORES[expectedClosers[k]]);
                     }
+                } catch (ArithmeticException e) {
+                    throw new IllegalArgumentException("Completion score of the line at byte " + lineStart
+                            + " overflows a long, it needs " + depth + " closing brackets");
                 }
+                if (completions == completionScores.length) {
+                    completionScores = Arrays.copyOf(completionScores, completions * 2);
+                }
+                completionScores[completions++] = score;
+            }
+            depth = 0;
+            corrupted = false;
+        }
+
+        long getErrorScore() {
+            return errorScore;
+        }
+
+        int getCompletions() {
+            return completions;
+        }
+
+        long getCompletionScore(int completion) {
+            return completionScores[completion];
+        }
+
+        long[] getCompletionScores() {
+            return Arrays.copyOf(completionScores, completions);
+        }
+
+        /**
+         * Hands the completion scores over and forgets them, keeping the error score and the current line.
+         */
+        void drainCompletionScores(LongConsumer consumer) {
+            for (int completion = 0; completion < completions; completion++) {
+                consumer.accept(completionScores[completion]);
+            }
+            completions = 0;
+        }
+    }
+
+    /**
+     * Validation of a file that keeps growing. Each poll validates only the bytes appended since the previous
+     * one; a line without its newline yet stays open in the validator until the rest of it arrives. A file that
+     * got shorter was truncated or replaced, and is validated again from its start.
+     */
+    static class LogTail {
+        private final Path path;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private BracketValidator validator = new BracketValidator();
+        private RunningMedian completionScores = new RunningMedian();
+        private long position;
+
+        LogTail(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Validates the appended bytes and returns whether there were any.
+         */
+        boolean poll() throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < position) {
+                    validator = new BracketValidator();
+                    completionScores = new RunningMedian();
+                    position = 0;
+                }
+                if (size == position) {
+                    return false;
+                }
+                while (position < size) {
+                    buffer.clear();
+                    int read = channel.read(buffer, position);
+                    if (read <= 0) {
+                        break;
+                    }
+                    validator.accept(buffer, 0, read);
+                    position += read;
+                }
+                validator.drainCompletionScores(completionScores::add);
+                return true;
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        long getErrorScore() {
+            return validator.getErrorScore();
+        }
+
+        RunningMedian getCompletionScores() {
+            return completionScores;
+        }
+    }
+
+    /**
+     * Median of a growing multiset: the smaller half in a max-heap and the larger half in a min-heap that holds
+     * at most one score more, so the median is the top of the larger half. Adding is O(log n), the median O(1).
+     */
+    static class RunningMedian {
+        private final LongHeap smaller = new LongHeap(true);
+        private final LongHeap larger = new LongHeap(false);
+
+        void add(long score) {
+            if (larger.size() == 0 || score >= larger.peek()) {
+                larger.add(score);
+            } else {
+                smaller.add(score);
+            }
+            if (larger.size() > smaller.size() + 1) {
+                smaller.add(larger.poll());
+            } else if (smaller.size() > larger.size()) {
+                larger.add(smaller.poll());
             }
-            if (!openingBraces.isEmpty()) {
-                List<String> completedClosingBraces = openingBraces.stream()
-                        .map(MATCHING_BRACES::get)
-                        .collect(Collectors.toList());
-                Collections.reverse(completedClosingBraces);
-                completedLines.add(completedClosingBraces);
+        }
+
+        int size() {
+            return smaller.size() + larger.size();
+        }
+
+        /**
+         * The score at index {@code size() / 2} in ascending order, the same one as the puzzle's middle score.
+         */
+        long median() {
+            if (larger.size() == 0) {
+                throw new IllegalStateException("No completion scores yet");
             }
+            return larger.peek();
         }
+    }
+
+    private static class LongHeap {
+        private final boolean max;
+        private long[] heap = new long[64];
+        private int count;
 
-        public int getErrorScore() {
-            return foundErrorBraces.stream().mapToInt(ERROR_SCORES::get).sum();
+        private LongHeap(boolean max) {
+            this.max = max;
         }
 
-        public long getCompletionScore() {
-            long[] scores = completedLines.stream()
-                    .mapToLong(braces -> {
-                        long score = 0;
-                        for (String brace : braces) {
-                            score = score * 5 + COMPLETION_SCORES.get(brace);
-                        }
-                        return score;
-                    })
-                    .sorted()
-                    .toArray();
-            return scores[scores.length / 2];
+        private int size() {
+            return count;
         }
 
+        private long peek() {
+            return heap[0];
+        }
+
+        private void add(long value) {
+            if (count == heap.length) {
+                heap = Arrays.copyOf(heap, count * 2);
+            }
+            heap[count] = value;
+            int i = count++;
+            while (i > 0 && before(heap[i], heap[(i - 1) / 2])) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private long poll() {
+            long top = heap[0];
+            heap[0] = heap[--count];
+            int i = 0;
+            while (true) {
+                int first = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < count; child++) {
+                    if (before(heap[child], heap[first])) {
+                        first = child;
+                    }
+                }
+                if (first == i) {
+                    return top;
+                }
+                swap(i, first);
+                i = first;
+            }
+        }
+
+        private boolean before(long a, long b) {
+            return max ? a > b : a < b;
+        }
+
+        private void swap(int i, int j) {
+            long swap = heap[i];
+            heap[i] = heap[j];
+            heap[j] = swap;
+        }
     }
 }
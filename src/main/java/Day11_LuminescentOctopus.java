@@ -1,41 +1,47 @@
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
-import java.util.Arrays;
-import java.util.Stack;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.List;
 
-public class Day11_LuminescentOctopus {
+public class Day11_LuminescentOctopus implements Solver<ByteGrid> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/11.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day11_LuminescentOctopus(), args);
+    }
 
-            String[] lines = br.lines().toArray(String[]::new);
+    @Override
+    public int day() {
+        return 11;
+    }
 
-            int[][] board = new int[lines.length][lines.length];
-            for (int i = 0; i < lines.length; i++) {
-                int[] row = Arrays.stream(lines[i].split("")).mapToInt(Integer::parseInt).toArray();
-                board[i] = row;
-            }
+    @Override
+    public ByteGrid parse(List<String> lines) {
+        return parse(InputCursor.of(lines));
+    }
 
-            OctopusBoard octopusBoard = new OctopusBoard(board);
+    @Override
+    public ByteGrid parse(InputCursor cursor) {
+        return ByteGrid.parseDigits(cursor, false);
+    }
 
-            System.out.println(octopusBoard.findFirstTotalFlash());
-        }
+    @Override
+    public Object part1(ByteGrid board) {
+        OctopusBoard octopusBoard = new OctopusBoard(board);
+        return Instrumentation.measure("simulate steps", () -> octopusBoard.calculateTotalFlashes(100));
+    }
+
+    @Override
+    public Object part2(ByteGrid board) {
+        OctopusBoard octopusBoard = new OctopusBoard(board);
+        return Instrumentation.measure("find total flash", octopusBoard::findFirstTotalFlash);
     }
 
     private static class OctopusBoard {
-        private final Octopus[][] board;
+        private static final int FLASH_LEVEL = 10;
 
-        private OctopusBoard(int[][] inputBoard) {
-            this.board = new Octopus[inputBoard.length][inputBoard[0].length];
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[0].length; j++) {
-                    this.board[i][j] = new Octopus(inputBoard[i][j], i, j);
-                }
-            }
+        private final ByteGrid energyLevels;
+        private final int[] flashedOctopuses;
+        private final int[] neighbours = new int[8];
+
+        private OctopusBoard(ByteGrid inputBoard) {
+            this.energyLevels = inputBoard.copy();
+            this.flashedOctopuses = new int[energyLevels.size()];
         }
 
         public int calculateTotalFlashes(int steps) {
@@ -49,65 +55,39 @@ public class Day11_LuminescentOctopus {
         public int findFirstTotalFlash() {
             for (int i = 1;; i++) {
                 int flashCount = simulateStep();
-                if (flashCount == board.length * board[0].length) {
+                if (flashCount == energyLevels.size()) {
                     return i;
                 }
             }
         }
 
+        /**
+         * An octopus that flashed is reset to 0 right away; everything else was raised to at least 1 this step,
+         * so 0 marks the octopuses that must not gain energy again until the next step.
+         */
         private int simulateStep() {
-            Stack<Octopus> flashedOctopus = new Stack<>();
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[0].length; j++) {
-                    board[i][j].flashedThisTurn = false;
-                    int newEnergyLevel = board[i][j].energyLevel.incrementAndGet();
-                    if (newEnergyLevel == 10) {
-                        flashedOctopus.push(board[i][j]);
-                    }
+            int flashedCount = 0;
+            for (int index = 0; index < energyLevels.size(); index++) {
+                if (energyLevels.increment(index) == FLASH_LEVEL) {
+                    flashedOctopuses[flashedCount++] = index;
                 }
             }
 
             int totalFlashes = 0;
-            while (!flashedOctopus.isEmpty()) {
-                Octopus octopus = flashedOctopus.pop();
+            while (flashedCount > 0) {
+                int octopus = flashedOctopuses[--flashedCount];
                 totalFlashes++;
-                octopus.energyLevel.set(0);
-                octopus.flashedThisTurn = true;
-                for (int i = octopus.i - 1; i <= octopus.i + 1; i++) {
-                    for (int j = octopus.j - 1; j <= octopus.j + 1; j++) {
-                        if (!isValidPoint(i, j)) {
-                            continue;
-                        }
-                        Octopus surroundingOctopus = board[i][j];
-                        if (surroundingOctopus.flashedThisTurn) {
-                            continue;
-                        }
-                        int newEnergyLevel = surroundingOctopus.energyLevel.incrementAndGet();
-                        if (newEnergyLevel == 10) {
-                            flashedOctopus.push(surroundingOctopus);
-                        }
+                energyLevels.set(octopus, 0);
+                int neighbourCount = energyLevels.neighbours8(octopus, neighbours);
+                for (int k = 0; k < neighbourCount; k++) {
+                    int neighbour = neighbours[k];
+                    if (energyLevels.get(neighbour) != 0 && energyLevels.increment(neighbour) == FLASH_LEVEL) {
+                        flashedOctopuses[flashedCount++] = neighbour;
                     }
                 }
             }
 
             return totalFlashes;
         }
-
-        private boolean isValidPoint(int i, int j) {
-            return i >= 0 && i < board.length && j >= 0 && j < board[0].length;
-        }
-    }
-
-    private static class Octopus {
-        private boolean flashedThisTurn = false;
-        private AtomicInteger energyLevel;
-        private int i;
-        private int j;
-
-        public Octopus(int energyLevel, int i, int j) {
-            this.energyLevel = new AtomicInteger(energyLevel);
-            this.i = i;
-            this.j = j;
-        }
     }
 }
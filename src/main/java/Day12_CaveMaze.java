@@ -2,11 +2,6 @@ import com.google.common.collect.Sets;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -14,25 +9,37 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.function.Predicate;
 
-public class Day12_CaveMaze {
+public class Day12_CaveMaze implements Solver<Day12_CaveMaze.CaveMaze> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/12.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day12_CaveMaze(), args);
+    }
 
-            String[] lines = br.lines().toArray(String[]::new);
+    @Override
+    public int day() {
+        return 12;
+    }
 
-            CaveMaze caveMaze = new CaveMaze(lines);
+    @Override
+    public CaveMaze parse(List<String> lines) {
+        return new CaveMaze(lines.stream().filter(Predicate.not(String::isBlank)).toArray(String[]::new));
+    }
 
-            System.out.println(caveMaze.calculatePathCount());
-        }
+    @Override
+    public Object part1(CaveMaze caveMaze) {
+        return Instrumentation.measure("walk paths", () -> caveMaze.calculatePathCount(0));
+    }
+
+    @Override
+    public Object part2(CaveMaze caveMaze) {
+        return Instrumentation.measure("walk paths", () -> caveMaze.calculatePathCount(1));
     }
 
     private static final Cave START_CAVE = new Cave("start");
     private static final Cave END_CAVE = new Cave("end");
 
-    private static class CaveMaze {
+    static class CaveMaze {
 
         private final Map<Cave, Set<Cave>> caveConnections = new HashMap<>();
 
@@ -46,10 +53,10 @@ public class Day12_CaveMaze {
             }
         }
 
-        public int calculatePathCount() {
+        public int calculatePathCount(int allowedAdditionalSmallCaveVisit) {
             int pathsCount = 0;
             Stack<Path> paths = new Stack<>();
-            paths.push(new Path());
+            paths.push(new Path(allowedAdditionalSmallCaveVisit));
             while (!paths.isEmpty()) {
                 Path path = paths.pop();
                 Cave lastCave = path.cavePath.get(path.cavePath.size() - 1);
@@ -77,10 +84,10 @@ public class Day12_CaveMaze {
         private final List<Cave> cavePath;
         private final int allowedAdditionalSmallCaveVisit;
 
-        public Path() {
+        public Path(int allowedAdditionalSmallCaveVisit) {
             this.visitedCaves = Set.of(START_CAVE);
             this.cavePath = List.of(START_CAVE);
-            this.allowedAdditionalSmallCaveVisit = 1;
+            this.allowedAdditionalSmallCaveVisit = allowedAdditionalSmallCaveVisit;
         }
 
         private Path(Set<Cave> visitedCaves, List<Cave> cavePath, int allowedAdditionalSmallCaveVisit) {
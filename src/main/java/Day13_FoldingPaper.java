@@ -3,59 +3,77 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.Stack;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class Day13_FoldingPaper {
+public class Day13_FoldingPaper implements Solver<Day13_FoldingPaper.Instructions> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/13.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day13_FoldingPaper(), args);
+    }
 
-            List<String> lines = br.lines().collect(Collectors.toList());
+    @Override
+    public int day() {
+        return 13;
+    }
 
-            Board board = new Board(lines);
+    @Override
+    public Instructions parse(List<String> lines) {
+        long[] points = lines.stream()
+                .filter(Predicate.not(String::isBlank))
+                .filter(str -> !str.contains("fold"))
+                .map(str -> Arrays.stream(str.split(",")).mapToInt(Integer::parseInt).toArray())
+                .mapToLong(coordinates -> Coordinates.pack(coordinates[0], coordinates[1]))
+                .distinct()
+                .toArray();
+
+        List<FoldingRule> foldingRules = lines.stream()
+                .filter(str -> str.contains("fold along "))
+                .map(str -> str.substring("fold along ".length()))
+                .map(str -> str.split("="))
+                .map(rule -> new FoldingRule(rule[0], Integer.parseInt(rule[1])))
+                .collect(Collectors.toList());
+
+        return new Instructions(points, foldingRules);
+    }
 
-            List<FoldingRule> foldingRules = lines.stream()
-                    .filter(str -> str.contains("fold along "))
-                    .map(str -> str.substring("fold along ".length()))
-                    .map(str -> str.split("="))
-                    .map(rule -> new FoldingRule(rule[0], Integer.parseInt(rule[1])))
-                    .collect(Collectors.toList());
+    @Override
+    public Object part1(Instructions instructions) {
+        Board board = new Board(instructions.points);
+        Instrumentation.measure("fold", () -> board.fold(instructions.foldingRules.get(0)));
+        return board.getPointsCount();
+    }
 
-            for (FoldingRule foldingRule : foldingRules) {
+    @Override
+    public Object part2(Instructions instructions) {
+        Board board = new Board(instructions.points);
+        Instrumentation.measure("fold", () -> {
+            for (FoldingRule foldingRule : instructions.foldingRules) {
                 board.fold(foldingRule);
             }
+        });
+        return Instrumentation.measure("visualize", board::visualizeBoard);
+    }
 
-            board.visualizeBoard();
-        }
+    @Value
+    static class Instructions {
+        long[] points;
+        List<FoldingRule> foldingRules;
     }
 
     private static class Board {
-        private final Set<Point> points;
-
-        public Board(Collection<String> boardConfig) {
-            this.points = boardConfig.stream()
-                    .filter(Predicate.not(String::isBlank))
-                    .filter(str -> !str.contains("fold"))
-                    .map(str -> Arrays.stream(str.split(",")).mapToInt(Integer::parseInt).toArray())
-                    .map(coordinates -> new Point(coordinates[0], coordinates[1]))
-                    .collect(Collectors.toSet());
-
+        private LongSet points;
 
+        public Board(long[] points) {
+            this.points = new LongSet(points.length);
+            for (long point : points) {
+                this.points.add(point);
+            }
         }
 
 
@@ -64,40 +82,32 @@ public class Day13_FoldingPaper {
         }
 
         public void fold(FoldingRule foldingRule) {
-            Collection<Point> discardedPoints = points.stream()
-                    .filter(foldingRule::isOnLine)
-                    .collect(Collectors.toList());
-            discardedPoints.forEach(points::remove);
-
-            Collection<Point> pointsToFold = points.stream()
-                    .filter(foldingRule::isFolded)
-                    .collect(Collectors.toList());
-            pointsToFold.forEach(points::remove);
-
-            Collection<Point> pointsAfterFold = pointsToFold.stream()
-                    .map(foldingRule::afterFold)
-                    .collect(Collectors.toList());
-            points.addAll(pointsAfterFold);
+            LongSet pointsAfterFold = new LongSet(points.size());
+            points.forEach(point -> {
+                if (foldingRule.isFolded(point)) {
+                    pointsAfterFold.add(foldingRule.afterFold(point));
+                } else if (!foldingRule.isOnLine(point)) {
+                    pointsAfterFold.add(point);
+                }
+            });
+            points = pointsAfterFold;
         }
 
-        public void visualizeBoard() {
-            int maxX = points.stream().mapToInt(Point::getX).max().getAsInt();
-            int maxY = points.stream().mapToInt(Point::getY).max().getAsInt();
+        public String visualizeBoard() {
+            long[] allPoints = points.toArray();
+            int maxX = Arrays.stream(allPoints).mapToInt(Coordinates::x).max().getAsInt();
+            int maxY = Arrays.stream(allPoints).mapToInt(Coordinates::y).max().getAsInt();
+            StringBuilder visualization = new StringBuilder();
             for (int y = 0; y <= maxY; y++) {
+                visualization.append(System.lineSeparator());
                 for (int x = 0; x <= maxX; x++) {
-                    System.out.print(points.contains(new Point(x, y)) ? "#" : ".");
+                    visualization.append(points.contains(Coordinates.pack(x, y)) ? "#" : ".");
                 }
-                System.out.println();
             }
+            return visualization.toString();
         }
     }
 
-    @Value
-    private static class Point {
-        int x;
-        int y;
-    }
-
     private static class FoldingRule {
         private final LineType type;
         private final int coordinate;
@@ -107,29 +117,29 @@ public class Day13_FoldingPaper {
             this.coordinate = coordinate;
         }
 
-        public boolean isOnLine(Point point) {
+        public boolean isOnLine(long point) {
             if (type == LineType.HORIZONTAL) {
-                return point.y == coordinate;
+                return Coordinates.y(point) == coordinate;
             } else {
-                return point.x == coordinate;
+                return Coordinates.x(point) == coordinate;
             }
         }
 
-        public boolean isFolded(Point point) {
+        public boolean isFolded(long point) {
             if (type == LineType.HORIZONTAL) {
-                return point.y > coordinate;
+                return Coordinates.y(point) > coordinate;
             } else {
-                return point.x > coordinate;
+                return Coordinates.x(point) > coordinate;
             }
         }
 
-        public Point afterFold(Point point) {
+        public long afterFold(long point) {
             if (type == LineType.HORIZONTAL) {
-                int newY = coordinate - (point.y - coordinate);
-                return new Point(point.x, newY);
+                int newY = coordinate - (Coordinates.y(point) - coordinate);
+                return Coordinates.pack(Coordinates.x(point), newY);
             } else {
-                int newX = coordinate - (point.x - coordinate);
-                return new Point(newX, point.y);
+                int newX = coordinate - (Coordinates.x(point) - coordinate);
+                return Coordinates.pack(newX, Coordinates.y(point));
             }
         }
     }
@@ -1,11 +1,7 @@
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
+import lombok.Value;
+
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
@@ -13,19 +9,42 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day14_PolymersCreation {
+public class Day14_PolymersCreation implements Solver<Day14_PolymersCreation.PolymerTemplate> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/14.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day14_PolymersCreation(), args);
+    }
 
-            List<String> lines = br.lines().collect(Collectors.toList());
-            String initialTemplate = lines.get(0);
+    @Override
+    public int day() {
+        return 14;
+    }
 
-            Polymer polymer = new Polymer(initialTemplate, lines.subList(1, lines.size()), 40);
+    @Override
+    public PolymerTemplate parse(List<String> lines) {
+        List<String> initialPolymer = Arrays.stream(lines.get(0).split("")).collect(Collectors.toList());
+        Map<List<String>, String> pairInsertionRules = lines.subList(1, lines.size()).stream()
+                .filter(Predicate.not(String::isBlank))
+                .map(str -> str.split(" -> "))
+                .collect(Collectors.toMap(
+                        elements -> Arrays.stream(elements[0].split("")).collect(Collectors.toList()),
+                        elements -> elements[1]));
+        return new PolymerTemplate(initialPolymer, pairInsertionRules);
+    }
 
-            System.out.println(polymer.getResult());
-        }
+    @Override
+    public Object part1(PolymerTemplate template) {
+        return new Polymer(template, 10).getResult();
+    }
+
+    @Override
+    public Object part2(PolymerTemplate template) {
+        return new Polymer(template, 40).getResult();
+    }
+
+    @Value
+    static class PolymerTemplate {
+        List<String> initialPolymer;
+        Map<List<String>, String> pairInsertionRules;
     }
 
     private static class Polymer {
@@ -35,23 +54,21 @@ public class Day14_PolymersCreation {
         private final List<String> initialPolymer;
         private final int maxSteps;
 
-        public Polymer(String initialPolymerStr, Collection<String> pairInsertionRulesCollection, int maxSteps) {
-            this.initialPolymer = Arrays.stream(initialPolymerStr.split("")).collect(Collectors.toCollection(LinkedList::new));
-            this.initialPairInsertionRules = pairInsertionRulesCollection.stream()
-                    .filter(Predicate.not(String::isBlank))
-                    .map(str -> str.split(" -> "))
-                    .collect(Collectors.toMap(
-                            elements -> Arrays.stream(elements[0].split("")).collect(Collectors.toList()),
-                            elements -> elements[1]));
+        public Polymer(PolymerTemplate template, int maxSteps) {
+            this.initialPolymer = template.initialPolymer;
+            this.initialPairInsertionRules = template.pairInsertionRules;
             this.maxSteps = maxSteps;
         }
 
         public long getResult() {
-            DistinctElementsCounter elementsCounter = DistinctElementsCounter.of(initialPolymer);
-            for (int i = 1; i < initialPolymer.size(); i++) {
-                DistinctElementsCounter foundElementCounter = getElementsCounter(0, initialPolymer.get(i - 1), initialPolymer.get(i));
-                elementsCounter = elementsCounter.merge(foundElementCounter);
-            }
+            DistinctElementsCounter elementsCounter = Instrumentation.measure("count insertions", () -> {
+                DistinctElementsCounter counter = DistinctElementsCounter.of(initialPolymer);
+                for (int i = 1; i < initialPolymer.size(); i++) {
+                    DistinctElementsCounter foundElementCounter = getElementsCounter(0, initialPolymer.get(i - 1), initialPolymer.get(i));
+                    counter = counter.merge(foundElementCounter);
+                }
+                return counter;
+            });
 
             long[] quantities = elementsCounter.elementsCount.values().stream()
                     .mapToLong(l -> l)
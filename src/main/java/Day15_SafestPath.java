@@ -1,156 +1,124 @@
-import lombok.Value;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 
-public class Day15_SafestPath {
+public class Day15_SafestPath implements Solver<ByteGrid> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/15.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day15_SafestPath(), args);
+    }
 
-            String[] lines = br.lines().toArray(String[]::new);
-            int[][] board = new int[lines.length][lines[0].length()];
-            for (int i = 0; i < lines.length; i++) {
-                board[i] = Arrays.stream(lines[i].split("")).mapToInt(Integer::parseInt).toArray();
-            }
+    @Override
+    public int day() {
+        return 15;
+    }
 
-            NodeGraph nodeGraph = new NodeGraph(board, 5);
-            PathCalculator pathCalculator = new PathCalculator(nodeGraph);
+    @Override
+    public ByteGrid parse(List<String> lines) {
+        return parse(InputCursor.of(lines));
+    }
 
-            System.out.println(pathCalculator.getSafestPath());
-        }
+    @Override
+    public ByteGrid parse(InputCursor cursor) {
+        return ByteGrid.parseDigits(cursor, false);
     }
 
-    private static class PathCalculator {
-        private final Map<Node, NodePath> paths = new HashMap<>();
-        private final NodeGraph nodeGraph;
+    @Override
+    public Object part1(ByteGrid board) {
+        return new PathCalculator(Instrumentation.measure("expand board", () -> createFullBoard(board, 1))).getSafestPath();
+    }
 
-        public PathCalculator(NodeGraph nodeGraph) {
-            this.nodeGraph = nodeGraph;
-            calculateSafestPath();
-        }
+    @Override
+    public Object part2(ByteGrid board) {
+        return new PathCalculator(Instrumentation.measure("expand board", () -> createFullBoard(board, 5))).getSafestPath();
+    }
 
-        private void calculateSafestPath() {
-            Queue<Node> nodes = new LinkedList<>();
-            nodes.add(nodeGraph.getStart());
-            while (!nodes.isEmpty()) {
-                Node currentNode = nodes.poll();
-                NodePath currentNodePath = paths.getOrDefault(currentNode, new NodePath(0, List.of()));
-                List<Node> neighbours = nodeGraph.getNeighbours(currentNode);
-                for (Node neighbour : neighbours) {
-                    NodePath neighbourPath = paths.getOrDefault(neighbour, NodePath.LONGEST_PATH);
-                    if (currentNodePath.pathRisk + neighbour.riskLevel < neighbourPath.getPathRisk()) {
-                        nodes.add(neighbour);
-                        paths.put(neighbour, currentNodePath.newPath(neighbour));
-                    }
+    private static ByteGrid createFullBoard(ByteGrid boardPart, int boardMultiplier) {
+        ByteGrid fullBoard = new ByteGrid(boardPart.height() * boardMultiplier, boardPart.width() * boardMultiplier, false);
+        for (int i = 0; i < fullBoard.height(); i++) {
+            for (int j = 0; j < fullBoard.width(); j++) {
+                int iPart = i % boardPart.height();
+                int jPart = j % boardPart.width();
+                int increment = i / boardPart.height() + j / boardPart.width();
+                int value = boardPart.get(iPart, jPart) + increment;
+                if (value > 9) {
+                    value = (value - 9);
                 }
+                fullBoard.set(i, j, value);
             }
         }
-
-        public int getSafestPath() {
-            return paths.get(nodeGraph.getEnd()).pathRisk;
-        }
+        return fullBoard;
     }
 
-    private static class NodeGraph {
-        private final Node start;
-        private final Node end;
-        private final Map<Node, List<Node>> nodeConnections;
+    /**
+     * Relaxes path risks from the start until nothing improves. Cells waiting in the ring queue are flagged, so
+     * each cell is queued at most once at a time and the queue never holds more than the whole board. The arrays
+     * are kept per thread and reused by the next board of at most the same size.
+     */
+    private static class PathCalculator {
+        private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
-        private NodeGraph(int[][] boardPart, int boardMultiplier) {
-            int[][] board = createFullBoard(boardPart, boardMultiplier);
-            this.nodeConnections = new HashMap<>();
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[0].length; j++) {
-                    List<Node> neighbours = Collections.unmodifiableList(getNeighbourNodes(i, j, board));
-                    nodeConnections.put(new Node(i, j, board[i][j]), neighbours);
-                }
-            }
-            this.start = new Node(0, 0, board[0][0]);
-            this.end = new Node(board.length - 1, board[0].length - 1, board[board.length - 1][board[0].length - 1]);
+        private final ByteGrid board;
+        private final int safestPath;
+
+        public PathCalculator(ByteGrid board) {
+            this.board = board;
+            this.safestPath = Instrumentation.measure("relax paths",
+                    () -> calculateSafestPath(SCRATCH.get().ensureCapacity(board.size())));
         }
 
-        private int[][] createFullBoard(int[][] boardPart, int boardMultiplier) {
-            int[][] fullBoard = new int[boardPart.length * boardMultiplier][boardPart[0].length * boardMultiplier];
-            for (int i = 0; i < fullBoard.length; i++) {
-                for (int j = 0; j < fullBoard[0].length; j++) {
-                    int iPart = i % boardPart.length;
-                    int jPart = j % boardPart[0].length;
-                    int increment = i / boardPart.length + j / boardPart.length;
-                    int value = boardPart[iPart][jPart] + increment;
-                    if (value > 9) {
-                        value = (value - 9);
+        private int calculateSafestPath(Scratch scratch) {
+            int[] pathRisks = scratch.pathRisks;
+            boolean[] queued = scratch.queued;
+            int[] queue = scratch.queue;
+            int[] neighbours = scratch.neighbours;
+            int size = board.size();
+            Arrays.fill(pathRisks, 0, size, Integer.MAX_VALUE);
+            pathRisks[0] = 0;
+            int head = 0;
+            int queueSize = 1;
+            queue[0] = 0;
+            queued[0] = true;
+            while (queueSize > 0) {
+                int currentNode = queue[head];
+                head = head + 1 == size ? 0 : head + 1;
+                queueSize--;
+                queued[currentNode] = false;
+                int currentPathRisk = pathRisks[currentNode];
+                int neighbourCount = board.neighbours4(currentNode, neighbours);
+                for (int k = 0; k < neighbourCount; k++) {
+                    int neighbour = neighbours[k];
+                    int neighbourPathRisk = currentPathRisk + board.get(neighbour);
+                    if (neighbour == 0 || neighbourPathRisk >= pathRisks[neighbour]) {
+                        continue;
+                    }
+                    pathRisks[neighbour] = neighbourPathRisk;
+                    if (!queued[neighbour]) {
+                        queued[neighbour] = true;
+                        queue[(head + queueSize++) % size] = neighbour;
                     }
-                    fullBoard[i][j] = value;
                 }
             }
-            return fullBoard;
+            // every queued flag is cleared again when its cell leaves the queue
+            return pathRisks[size - 1];
         }
 
-        private List<Node> getNeighbourNodes(int i, int j, int[][] board) {
-            List<Node> neighbours = new ArrayList<>();
-            if (isValidNeighbour(i - 1, j, board)) {
-                neighbours.add(new Node(i - 1, j, board[i - 1][j]));
-            }
-            if (isValidNeighbour(i + 1, j, board)) {
-                neighbours.add(new Node(i + 1, j, board[i + 1][j]));
-            }
-            if (isValidNeighbour(i, j - 1, board)) {
-                neighbours.add(new Node(i, j - 1, board[i][j - 1]));
-            }
-            if (isValidNeighbour(i, j + 1, board)) {
-                neighbours.add(new Node(i, j + 1, board[i][j + 1]));
-            }
-            return neighbours;
-        }
-
-        private boolean isValidNeighbour(int i, int j, int[][] board) {
-            return i >= 0 && i < board.length && j >= 0 && j < board[0].length
-                    && !(i == 0 && j == 0);
-        }
-
-        public Node getStart() {
-            return start;
-        }
-
-        public Node getEnd() {
-            return end;
-        }
-
-        public List<Node> getNeighbours(Node from) {
-            return nodeConnections.get(from);
+        public int getSafestPath() {
+            return safestPath;
         }
     }
 
-    @Value
-    private static class NodePath {
-        public static final NodePath LONGEST_PATH = new NodePath(Integer.MAX_VALUE, List.of());
-
-        int pathRisk;
-        List<Node> path;
-
-        public NodePath newPath(Node node) {
-            List<Node> tmpPath = new ArrayList<>(path);
-            tmpPath.add(node);
-            return new NodePath(pathRisk + node.riskLevel, Collections.unmodifiableList(tmpPath));
+    private static class Scratch {
+        private final int[] neighbours = new int[4];
+        private int[] pathRisks = new int[0];
+        private int[] queue = new int[0];
+        private boolean[] queued = new boolean[0];
+
+        private Scratch ensureCapacity(int size) {
+            if (pathRisks.length < size) {
+                pathRisks = new int[size];
+                queue = new int[size];
+                queued = new boolean[size];
+            }
+            return this;
         }
     }
-
-    @Value
-    private static class Node {
-        int x;
-        int y;
-        int riskLevel;
-    }
 }
@@ -2,10 +2,6 @@ import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -13,20 +9,34 @@ import java.util.List;
 import java.util.Queue;
 import java.util.Stack;
 
-public class Day16_Calculator {
+public class Day16_Calculator implements Solver<Day16_Calculator.Expression> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/16.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day16_Calculator(), args);
+    }
+
+    @Override
+    public int day() {
+        return 16;
+    }
 
-            String hexLine = br.lines().findFirst().get();
-            String binaryLine = new BigInteger("1" + hexLine, 16).toString(2).substring(1);
+    @Override
+    public Expression parse(List<String> lines) {
+        String hexLine = lines.get(0);
+        String binaryLine = Instrumentation.measure("decode hex", () -> new BigInteger("1" + hexLine, 16).toString(2).substring(1));
 
-            Message message = new Message(binaryLine.toCharArray());
-            MessageParser messageParser = new MessageParser();
-            Expression expression = messageParser.parseMessage(message);
-            System.out.println(expression.calculate());
-        }
+        Message message = new Message(binaryLine.toCharArray());
+        MessageParser messageParser = new MessageParser();
+        return Instrumentation.measure("parse packets", () -> messageParser.parseMessage(message));
+    }
+
+    @Override
+    public Object part1(Expression expression) {
+        return Instrumentation.measure("sum versions", expression::getVersionSum);
+    }
+
+    @Override
+    public Object part2(Expression expression) {
+        return Instrumentation.measure("evaluate", expression::calculate);
     }
 
     private static class Message {
@@ -66,7 +76,7 @@ public class Day16_Calculator {
         }
     }
 
-    private interface Expression {
+    interface Expression {
         long calculate();
 
         int getVersionSum();
@@ -1,50 +1,77 @@
 import com.google.common.collect.Sets;
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class Day17_ProbeFiring {
+public class Day17_ProbeFiring implements Solver<Day17_ProbeFiring.ProbeTarget> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/17.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day17_ProbeFiring(), args);
+    }
 
-            String line = br.lines().findFirst().get();
+    @Override
+    public int day() {
+        return 17;
+    }
 
-            TargetZone targetZone = TargetZone.of(line);
-            VelocityCalculator velocityCalculator = new VelocityCalculator(targetZone);
+    @Override
+    public ProbeTarget parse(List<String> lines) {
+        return new ProbeTarget(TargetZone.of(lines.get(0)));
+    }
 
-            System.out.println(velocityCalculator.getNumberOfInitialVelocities());
-        }
+    @Override
+    public Object part1(ProbeTarget target) {
+        VelocityCalculator velocityCalculator = target.velocities();
+        return Instrumentation.measure("highest position", velocityCalculator::getHighestPosition);
+    }
+
+    @Override
+    public Object part2(ProbeTarget target) {
+        return target.velocities().getNumberOfInitialVelocities();
     }
 
-    private static Set<Pair> getExpectedPairs() throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/17_test_validate.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+    /**
+     * The parsed target zone. Its initial velocities are found on the first call of either part, and both parts
+     * share them.
+     */
+    static class ProbeTarget {
+        private final TargetZone targetZone;
+        private VelocityCalculator velocities;
+
+        ProbeTarget(TargetZone targetZone) {
+            this.targetZone = targetZone;
+        }
 
-            return br.lines().flatMap(line -> Arrays.stream(line.trim().split(" ")))
+        private synchronized VelocityCalculator velocities() {
+            if (velocities == null) {
+                velocities = Instrumentation.measure("find velocities", () -> new VelocityCalculator(targetZone));
+            }
+            return velocities;
+        }
+    }
+
+    private static LongSet getExpectedPairs() throws Exception {
+        try (Stream<String> lines = Files.lines(InputFiles.resolve("17_test_validate.txt"))) {
+            LongSet expectedPairs = new LongSet();
+            lines.flatMap(line -> Arrays.stream(line.trim().split(" ")))
                     .filter(Predicate.not(String::isBlank))
                     .map(pairStr -> pairStr.split(","))
-                    .map(pairArr -> new Pair(Integer.parseInt(pairArr[0]), Integer.parseInt(pairArr[1])))
-                    .collect(Collectors.toSet());
+                    .forEach(pairArr -> expectedPairs.add(Coordinates.pack(Integer.parseInt(pairArr[0]), Integer.parseInt(pairArr[1]))));
+            return expectedPairs;
         }
     }
 
     private static class VelocityCalculator {
         private final TargetZone targetZone;
 
-        private final Set<Pair> initialVelocities = new HashSet<>();
+        private final LongSet initialVelocities = new LongSet();
 
         private VelocityCalculator(TargetZone targetZone) {
             this.targetZone = targetZone;
@@ -59,7 +86,7 @@ public class Day17_ProbeFiring {
             for (int i = 0; i <= maxStep; i++) {
                 for (Integer y : yCoordinatesByStep.getOrDefault(i, Set.of())) {
                     for (Integer x : xCoordinatesByStep.getOrDefault(i, Set.of())) {
-                        initialVelocities.add(new Pair(x, y));
+                        initialVelocities.add(Coordinates.pack(x, y));
                     }
                 }
             }
@@ -107,7 +134,16 @@ public class Day17_ProbeFiring {
             return initialVelocities.size();
         }
 
-        public Set<Pair> getInitialVelocities() {
+        public int getHighestPosition() {
+            return Arrays.stream(initialVelocities.toArray())
+                    .mapToInt(Coordinates::y)
+                    .filter(y -> y > 0)
+                    .map(this::triangular)
+                    .max()
+                    .orElse(0);
+        }
+
+        public LongSet getInitialVelocities() {
             return initialVelocities;
         }
 
@@ -117,7 +153,7 @@ public class Day17_ProbeFiring {
     }
 
     @Value
-    private static class TargetZone {
+    static class TargetZone {
         int xStart;
         int xEnd;
         int yStart;
@@ -142,10 +178,4 @@ public class Day17_ProbeFiring {
             return x >= xStart && x <= xEnd;
         }
     }
-
-    @Value
-    private static class Pair {
-        int x;
-        int y;
-    }
 }
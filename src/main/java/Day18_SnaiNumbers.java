@@ -1,9 +1,5 @@
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -14,15 +10,40 @@ import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class Day18_SnaiNumbers {
+public class Day18_SnaiNumbers implements Solver<List<Day18_SnaiNumbers.SnailNumber>> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/18.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day18_SnaiNumbers(), args);
+    }
 
-            SnailFactory snailFactory = new SnailFactory();
-            List<SnailNumber> snailNumbers = br.lines().map(snailFactory::create).collect(Collectors.toList());
+    @Override
+    public int day() {
+        return 18;
+    }
 
+    @Override
+    public List<SnailNumber> parse(List<String> lines) {
+        SnailFactory snailFactory = new SnailFactory();
+        return lines.stream()
+                .filter(Predicate.not(String::isBlank))
+                .map(snailFactory::create)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Object part1(List<SnailNumber> snailNumbers) {
+        SnailNumber sum = Instrumentation.measure("add and reduce", () -> {
+            SnailNumber partialSum = snailNumbers.get(0);
+            for (int i = 1; i < snailNumbers.size(); i++) {
+                partialSum = new PairSnailNumber(partialSum, snailNumbers.get(i)).reduce();
+            }
+            return partialSum;
+        });
+        return sum.calculateMagnitude();
+    }
+
+    @Override
+    public Object part2(List<SnailNumber> snailNumbers) {
+        return Instrumentation.measure("pairwise sums", () -> {
             long maxMagnitude = 0;
             for (int i = 0; i < snailNumbers.size(); i++) {
                 for (int j = 0; j < snailNumbers.size(); j++) {
@@ -35,9 +56,8 @@ public class Day18_SnaiNumbers {
                     maxMagnitude = Math.max(maxMagnitude, magnitude);
                 }
             }
-
-            System.out.println(maxMagnitude);
-        }
+            return maxMagnitude;
+        });
     }
 
     private static class SnailFactory {
@@ -71,7 +91,7 @@ public class Day18_SnaiNumbers {
         }
     }
 
-    private interface SnailNumber {
+    interface SnailNumber {
         long calculateMagnitude();
 
         SnailNumber reduce();
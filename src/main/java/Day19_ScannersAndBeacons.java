@@ -1,13 +1,7 @@
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -18,22 +12,49 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-public class Day19_ScannersAndBeacons {
+public class Day19_ScannersAndBeacons implements Solver<Day19_ScannersAndBeacons.ScannerReports> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/19.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day19_ScannersAndBeacons(), args);
+    }
+
+    @Override
+    public int day() {
+        return 19;
+    }
+
+    @Override
+    public ScannerReports parse(List<String> lines) {
+        ScannerReportFactory scannerReportFactory = new ScannerReportFactory();
+        return new ScannerReports(scannerReportFactory.create(lines));
+    }
+
+    @Override
+    public Object part1(ScannerReports scannerReports) {
+        return scannerReports.beaconLocations().distinctBeacons();
+    }
+
+    @Override
+    public Object part2(ScannerReports scannerReports) {
+        return scannerReports.beaconLocations().findMaxDistance();
+    }
 
-            long start = System.nanoTime();
-            List<String> lines = br.lines().collect(Collectors.toList());
-            ScannerReportFactory scannerReportFactory = new ScannerReportFactory();
+    /**
+     * The parsed reports. The scanners are aligned on the first call of either part, and both parts share
+     * that one alignment.
+     */
+    static class ScannerReports {
+        private final List<ScannerReport> reports;
+        private BeaconLocationCalculator beaconLocations;
 
-            List<ScannerReport> scannerReports = scannerReportFactory.create(lines);
+        ScannerReports(List<ScannerReport> reports) {
+            this.reports = reports;
+        }
 
-            BeaconLocationCalculator beaconLocationCalculator = new BeaconLocationCalculator(scannerReports);
-            System.out.println(beaconLocationCalculator.findMaxDistance());
-            long end = System.nanoTime();
-            System.out.println("Time to solve - " + Duration.ofNanos(end - start).toMillis());
+        private synchronized BeaconLocationCalculator beaconLocations() {
+            if (beaconLocations == null) {
+                beaconLocations = Instrumentation.measure("locate beacons", () -> new BeaconLocationCalculator(reports));
+            }
+            return beaconLocations;
         }
     }
 
@@ -41,19 +62,19 @@ public class Day19_ScannersAndBeacons {
         List<ScannerReport> create(List<String> lines) {
             List<ScannerReport> scannerReports = new ArrayList<>();
             int currentScannerId = -1;
-            Set<Point> currentPoints = new HashSet<>();
+            LongSet currentPoints = new LongSet();
             for (String line : lines) {
                 if (line.startsWith("---")) {
                     currentScannerId = Integer.parseInt(line.substring("--- scanner ".length(), line.length() - 4));
-                    currentPoints = new HashSet<>();
+                    currentPoints = new LongSet();
                 } else if (line.isBlank()) {
-                    scannerReports.add(new ScannerReport(currentScannerId, Collections.unmodifiableSet(currentPoints)));
+                    scannerReports.add(new ScannerReport(currentScannerId, currentPoints.toArray()));
                 } else {
                     int[] coordinates = Arrays.stream(line.split(",")).mapToInt(Integer::parseInt).toArray();
-                    currentPoints.add(new Point(coordinates[0], coordinates[1], coordinates[2]));
+                    currentPoints.add(Coordinates.pack3(coordinates[0], coordinates[1], coordinates[2]));
                 }
             }
-            scannerReports.add(new ScannerReport(currentScannerId, Collections.unmodifiableSet(currentPoints)));
+            scannerReports.add(new ScannerReport(currentScannerId, currentPoints.toArray()));
             return scannerReports;
         }
     }
@@ -64,34 +85,38 @@ public class Day19_ScannersAndBeacons {
 
         Map<Integer, List<PairedScanners>> pairedScannersByScanner = new HashMap<>();
         Map<Integer, ComplexScannerReport> complexScannerReportsMap = new HashMap<>();
-        Set<Point> pointsFromRoot;
-        Set<Point> relativeScannerCoordinates = new HashSet<>();
+        LongSet pointsFromRoot;
+        LongSet relativeScannerCoordinates = new LongSet();
 
         public BeaconLocationCalculator(List<ScannerReport> scannerReports) {
-            List<ComplexScannerReport> complexScannerReports = scannerReports.stream()
+            List<ComplexScannerReport> complexScannerReports = Instrumentation.measure("measure distances", () -> scannerReports.stream()
                     .map(ComplexScannerReport::new)
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toList()));
             this.complexScannerReportsMap = complexScannerReports.stream()
                     .collect(Collectors.toMap(ComplexScannerReport::getScannerId, Function.identity()));
-            for (int i = 0; i < complexScannerReports.size(); i++) {
-                for (int j = i + 1; j < complexScannerReports.size(); j++) {
-                    compareScannerReports(complexScannerReports.get(i), complexScannerReports.get(j));
+            Instrumentation.measure("pair scanners", () -> {
+                for (int i = 0; i < complexScannerReports.size(); i++) {
+                    for (int j = i + 1; j < complexScannerReports.size(); j++) {
+                        compareScannerReports(complexScannerReports.get(i), complexScannerReports.get(j));
+                    }
                 }
-            }
+            });
+            Instrumentation.measure("locate scanners", this::locateScanners);
+        }
+
+        private void locateScanners() {
             Set<Integer> processedScanners = new HashSet<>();
             processedScanners.add(0);
-            relativeScannerCoordinates.add(new Point(0, 0, 0));
-            this.pointsFromRoot = new HashSet<>();
+            relativeScannerCoordinates.add(Coordinates.pack3(0, 0, 0));
+            this.pointsFromRoot = new LongSet();
             Queue<UnprocessedScanner> unprocessedScanners = new LinkedList<>();
-            unprocessedScanners.add(new UnprocessedScanner(0, Rotation.BASE_ROTATION, new Point(0, 0, 0)));
+            unprocessedScanners.add(new UnprocessedScanner(0, Rotation.BASE_ROTATION, Coordinates.pack3(0, 0, 0)));
             while (!unprocessedScanners.isEmpty()) {
                 UnprocessedScanner unprocessedScanner = unprocessedScanners.poll();
                 ComplexScannerReport scannerReport = complexScannerReportsMap.get(unprocessedScanner.scannerId);
-                Set<Point> currentPointsFromRoot = scannerReport.beaconsCoordinates.stream()
-                        .map(unprocessedScanner.rotation::rotate)
-                        .map(point -> point.add(unprocessedScanner.distanceFromRoot))
-                        .collect(Collectors.toSet());
-                pointsFromRoot.addAll(currentPointsFromRoot);
+                for (long beacon : scannerReport.beaconsCoordinates) {
+                    pointsFromRoot.add(Coordinates.add3(unprocessedScanner.rotation.rotate(beacon), unprocessedScanner.distanceFromRoot));
+                }
                 List<PairedScanners> pairedScanners = pairedScannersByScanner.get(unprocessedScanner.scannerId);
                 for (PairedScanners pairedScanner : pairedScanners) {
                     if (processedScanners.contains(pairedScanner.second.scannerId)) {
@@ -107,70 +132,65 @@ public class Day19_ScannersAndBeacons {
         }
 
         private void compareScannerReports(ComplexScannerReport first, ComplexScannerReport second) {
-            Set<Pair<Pair<Point>>> overlappingPoints = new HashSet<>();
-            for (Long quadraticDistance : first.distanceBetweenBeacons.keySet()) {
-                Distance secondDistance = second.distanceBetweenBeacons.get(quadraticDistance);
-                if (secondDistance != null) {
-                    Distance firstDistance = first.distanceBetweenBeacons.get(quadraticDistance);
-                    overlappingPoints.add(
-                            new Pair<>(
-                                    new Pair<>(firstDistance.from, firstDistance.to),
-                                    new Pair<>(secondDistance.from, secondDistance.to)
-                            )
-                    );
+            List<Pair<BeaconPair>> overlappingPoints = new ArrayList<>();
+            first.distanceBetweenBeacons.forEach((quadraticDistance, firstBeacons) -> {
+                long secondBeacons = second.distanceBetweenBeacons.get(quadraticDistance, -1);
+                if (secondBeacons != -1) {
+                    overlappingPoints.add(new Pair<>(first.beaconPair(firstBeacons), second.beaconPair(secondBeacons)));
                 }
-            }
+            });
             if (overlappingPoints.size() >= 12) {
                 pairedScannersByScanner.computeIfAbsent(first.scannerId, ignored -> new ArrayList<>())
                         .add(new PairedScanners(first, second, overlappingPoints));
-                Set<Pair<Pair<Point>>> swappedOverlappingPoints = overlappingPoints.stream().map(pair -> new Pair<>(pair.second, pair.first)).collect(Collectors.toSet());
+                List<Pair<BeaconPair>> swappedOverlappingPoints = overlappingPoints.stream().map(pair -> new Pair<>(pair.second, pair.first)).collect(Collectors.toList());
                 pairedScannersByScanner.computeIfAbsent(second.scannerId, ignored -> new ArrayList<>())
                         .add(new PairedScanners(second, first, swappedOverlappingPoints));
             }
         }
 
-        private UnprocessedScanner calculateRelativePosition(UnprocessedScanner firstUnprocessed, ComplexScannerReport second, Set<Pair<Pair<Point>>> overlappingPoints) {
-            Set<Point> firstOverlappingPoints = overlappingPoints.stream()
-                    .map(Pair::getFirst)
-                    .flatMap(pair -> List.of(pair.first, pair.second).stream())
-                    .collect(Collectors.toSet());
+        private UnprocessedScanner calculateRelativePosition(UnprocessedScanner firstUnprocessed, ComplexScannerReport second, List<Pair<BeaconPair>> overlappingPoints) {
+            LongSet firstOverlappingPoints = new LongSet();
+            for (Pair<BeaconPair> pair : overlappingPoints) {
+                firstOverlappingPoints.add(pair.first.from);
+                firstOverlappingPoints.add(pair.first.to);
+            }
             ComplexScannerReport first = complexScannerReportsMap.get(firstUnprocessed.scannerId);
-            List<Pair<Pair<Point>>> testNotCertainPoints = overlappingPoints.stream().limit(4).collect(Collectors.toList());
-            Set<Pair<Point>> testPoints = new HashSet<>();
+            LongLongMap testPoints = new LongLongMap();
             for (int i = 0; i < 3; i++) {
-                Pair<Pair<Point>> pair = testNotCertainPoints.get(i);
-                Pair<Point> firstPossiblePoints = pair.first;
-                Pair<Point> secondPossiblePoints = pair.second;
-                long firstRandomDistance = first.pointConnections.get(firstPossiblePoints.first).entrySet().stream()
-                        .filter(entry -> !entry.getKey().equals(firstPossiblePoints.second))
-                        .filter(entry -> firstOverlappingPoints.contains(entry.getKey()))
+                Pair<BeaconPair> pair = overlappingPoints.get(i);
+                BeaconPair firstPossiblePoints = pair.first;
+                BeaconPair secondPossiblePoints = pair.second;
+                long firstRandomDistance = Arrays.stream(first.beaconsCoordinates)
+                        .filter(beacon -> beacon != firstPossiblePoints.from && beacon != firstPossiblePoints.to)
+                        .filter(firstOverlappingPoints::contains)
+                        .map(beacon -> Coordinates.quadraticDistance3(firstPossiblePoints.from, beacon))
                         .findAny()
-                        .get()
-                        .getValue()
-                        .quadraticDistance;
-                if (second.distanceBetweenBeacons.get(firstRandomDistance).contains(secondPossiblePoints.first)) {
-                    testPoints.add(new Pair<>(firstPossiblePoints.first, secondPossiblePoints.first));
-                    testPoints.add(new Pair<>(firstPossiblePoints.second, secondPossiblePoints.second));
+                        .getAsLong();
+                long secondBeacons = second.distanceBetweenBeacons.get(firstRandomDistance, -1);
+                if (secondBeacons != -1 && second.beaconPair(secondBeacons).contains(secondPossiblePoints.from)) {
+                    testPoints.put(firstPossiblePoints.from, secondPossiblePoints.from);
+                    testPoints.put(firstPossiblePoints.to, secondPossiblePoints.to);
                 } else {
-                    testPoints.add(new Pair<>(firstPossiblePoints.first, secondPossiblePoints.second));
-                    testPoints.add(new Pair<>(firstPossiblePoints.second, secondPossiblePoints.first));
+                    testPoints.put(firstPossiblePoints.from, secondPossiblePoints.to);
+                    testPoints.put(firstPossiblePoints.to, secondPossiblePoints.from);
                 }
             }
 
-            List<Pair<Point>> rotatedFirstTestPoints = testPoints.stream()
-                    .map(pair -> new Pair<>(firstUnprocessed.rotation.rotate(pair.first), pair.second))
-                    .collect(Collectors.toList());
+            long[] firstTestPoints = testPoints.keys();
+            long[] rotatedFirstTestPoints = new long[firstTestPoints.length];
+            for (int i = 0; i < firstTestPoints.length; i++) {
+                rotatedFirstTestPoints[i] = firstUnprocessed.rotation.rotate(firstTestPoints[i]);
+            }
 
             for (Rotation rotation : Rotation.rotations()) {
-                List<Pair<Point>> rotatedTestPoints = rotatedFirstTestPoints.stream()
-                        .map(pair -> new Pair<>(pair.first, rotation.rotate(pair.second)))
-                        .collect(Collectors.toList());
-                Pair<Point> testPointPair = rotatedTestPoints.get(0);
-                Point possibleScannerCoordinates = testPointPair.first.minus(testPointPair.second);
-                boolean rotationMatch = rotatedTestPoints.stream()
-                        .allMatch(pair -> pair.first.minus(possibleScannerCoordinates).equals(pair.second));
+                long possibleScannerCoordinates = Coordinates.minus3(rotatedFirstTestPoints[0], rotation.rotate(testPoints.get(firstTestPoints[0], 0)));
+                boolean rotationMatch = true;
+                for (int i = 1; i < firstTestPoints.length && rotationMatch; i++) {
+                    long rotatedSecond = rotation.rotate(testPoints.get(firstTestPoints[i], 0));
+                    rotationMatch = Coordinates.minus3(rotatedFirstTestPoints[i], possibleScannerCoordinates) == rotatedSecond;
+                }
                 if (rotationMatch) {
-                    return new UnprocessedScanner(second.scannerId, rotation, firstUnprocessed.distanceFromRoot.add(possibleScannerCoordinates));
+                    return new UnprocessedScanner(second.scannerId, rotation, Coordinates.add3(firstUnprocessed.distanceFromRoot, possibleScannerCoordinates));
                 }
             }
             throw new IllegalStateException();
@@ -181,10 +201,11 @@ public class Day19_ScannersAndBeacons {
         }
 
         public int findMaxDistance() {
+            long[] scanners = relativeScannerCoordinates.toArray();
             int maxDistance = 0;
-            for (Point firstPoint : relativeScannerCoordinates) {
-                for (Point secondPoint : relativeScannerCoordinates) {
-                    maxDistance = Math.max(maxDistance, firstPoint.manhattanDistance(secondPoint));
+            for (long firstPoint : scanners) {
+                for (long secondPoint : scanners) {
+                    maxDistance = Math.max(maxDistance, Coordinates.manhattanDistance3(firstPoint, secondPoint));
                 }
             }
             return maxDistance;
@@ -195,7 +216,7 @@ public class Day19_ScannersAndBeacons {
     private static class UnprocessedScanner {
         int scannerId;
         Rotation rotation;
-        Point distanceFromRoot;
+        long distanceFromRoot;
     }
 
     @Value
@@ -234,29 +255,24 @@ public class Day19_ScannersAndBeacons {
         int[] signRotation;
         char[] axisRotation;
 
-        public Point rotate(Point point) {
-            return convertSign(convertAxis(point));
+        public long rotate(long point) {
+            return Coordinates.pack3(
+                    signRotation[0] * axis(point, axisRotation[0]),
+                    signRotation[1] * axis(point, axisRotation[1]),
+                    signRotation[2] * axis(point, axisRotation[2]));
         }
 
-        private Point convertAxis(Point point) {
-            if (Arrays.equals(axisRotation, new char[]{'x', 'y', 'z'})) {
-                return point;
-            } else if (Arrays.equals(axisRotation, new char[]{'x', 'z', 'y'})) {
-                return new Point(point.x, point.z, point.y);
-            } else if (Arrays.equals(axisRotation, new char[]{'z', 'y', 'x'})) {
-                return new Point(point.z, point.y, point.x);
-            } else if (Arrays.equals(axisRotation, new char[]{'z', 'x', 'y'})) {
-                return new Point(point.z, point.x, point.y);
-            } else if (Arrays.equals(axisRotation, new char[]{'y', 'x', 'z'})) {
-                return new Point(point.y, point.x, point.z);
-            } else if (Arrays.equals(axisRotation, new char[]{'y', 'z', 'x'})) {
-                return new Point(point.y, point.z, point.x);
+        private static int axis(long point, char axis) {
+            switch (axis) {
+                case 'x':
+                    return Coordinates.x3(point);
+                case 'y':
+                    return Coordinates.y3(point);
+                case 'z':
+                    return Coordinates.z3(point);
+                default:
+                    throw new IllegalStateException();
             }
-            throw new IllegalStateException();
-        }
-
-        private Point convertSign(Point point) {
-            return new Point(point.x * signRotation[0], point.y * signRotation[1], point.z * signRotation[2]);
         }
     }
 
@@ -264,77 +280,50 @@ public class Day19_ScannersAndBeacons {
     private static class PairedScanners {
         ComplexScannerReport first;
         ComplexScannerReport second;
-        Set<Pair<Pair<Point>>> overlappingPoints;
+        List<Pair<BeaconPair>> overlappingPoints;
     }
 
+    /**
+     * Beacons are packed 3D coordinates. Every squared distance between two beacons maps to the packed indexes
+     * of that beacon pair, so matching distances between scanners needs no boxing.
+     */
     @Value
     private static class ComplexScannerReport {
         int scannerId;
-        Set<Point> beaconsCoordinates;
-        Map<Long, Distance> distanceBetweenBeacons = new HashMap<>();
-        Map<Point, Map<Point, Distance>> pointConnections = new HashMap<>();
+        long[] beaconsCoordinates;
+        LongLongMap distanceBetweenBeacons;
 
         public ComplexScannerReport(ScannerReport scannerReport) {
             this.scannerId = scannerReport.scannerId;
             this.beaconsCoordinates = scannerReport.beaconsCoordinates;
-            List<Point> coordinatesList = new ArrayList<>(scannerReport.beaconsCoordinates);
-            for (int i = 0; i < coordinatesList.size(); i++) {
-                for (int j = i + 1; j < coordinatesList.size(); j++) {
-                    Point from = coordinatesList.get(i);
-                    Point to = coordinatesList.get(j);
-                    Distance distance = new Distance(from, to);
-                    distanceBetweenBeacons.put(distance.quadraticDistance, distance);
-                    pointConnections.computeIfAbsent(from, ignored -> new HashMap<>()).put(to, distance);
-                    pointConnections.computeIfAbsent(to, ignored -> new HashMap<>()).put(from, distance);
+            this.distanceBetweenBeacons = new LongLongMap(beaconsCoordinates.length * beaconsCoordinates.length / 2);
+            for (int i = 0; i < beaconsCoordinates.length; i++) {
+                for (int j = i + 1; j < beaconsCoordinates.length; j++) {
+                    long quadraticDistance = Coordinates.quadraticDistance3(beaconsCoordinates[i], beaconsCoordinates[j]);
+                    distanceBetweenBeacons.put(quadraticDistance, Coordinates.pack(i, j));
                 }
             }
         }
+
+        public BeaconPair beaconPair(long beaconIndexes) {
+            return new BeaconPair(beaconsCoordinates[Coordinates.x(beaconIndexes)], beaconsCoordinates[Coordinates.y(beaconIndexes)]);
+        }
     }
 
     @Value
-    private static class Distance {
-        Point from;
-        Point to;
-        long quadraticDistance;
-
-        public Distance(Point from, Point to) {
-            this.from = from;
-            this.to = to;
-            this.quadraticDistance = (long) (Math.pow(to.x - from.x, 2) + Math.pow(to.y - from.y, 2) + Math.pow(to.z - from.z, 2));
-        }
+    private static class BeaconPair {
+        long from;
+        long to;
 
-        public boolean contains(Point point) {
-            return from.equals(point) || to.equals(point);
+        public boolean contains(long point) {
+            return from == point || to == point;
         }
     }
 
     @Value
-    private static class ScannerReport {
+    static class ScannerReport {
         int scannerId;
-        Set<Point> beaconsCoordinates;
-    }
-
-    @Value
-    private static class Point {
-        int x;
-        int y;
-        int z;
-
-        public Point add(Point point) {
-            return new Point(x + point.x, y + point.y, z + point.z);
-        }
-
-        public Point minus(Point point) {
-            return new Point(x - point.x, y - point.y, z - point.z);
-        }
-
-        public int manhattanDistance(Point point) {
-            int distX = Math.abs(x - point.x);
-            int distY = Math.abs(y - point.y);
-            int distZ = Math.abs(z - point.z);
-
-            return distX + distY + distZ;
-        }
+        long[] beaconsCoordinates;
     }
 
     @Value
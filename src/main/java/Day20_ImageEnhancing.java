@@ -1,9 +1,5 @@
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -14,95 +10,131 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class Day20_ImageEnhancing {
+public class Day20_ImageEnhancing implements Solver<Day20_ImageEnhancing.ImageGrid> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/20.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day20_ImageEnhancing(), args);
+    }
 
-            List<String> lines = br.lines().collect(Collectors.toList());
+    @Override
+    public int day() {
+        return 20;
+    }
 
-            EnhancementAlgorithm enhancementAlgorithm = EnhancementAlgorithm.of(lines.get(0));
+    @Override
+    public ImageGrid parse(List<String> lines) {
+        EnhancementAlgorithm enhancementAlgorithm = EnhancementAlgorithm.of(lines.get(0));
 
-            ImageGrid image = ImageGrid.of(lines.subList(2, lines.size()), enhancementAlgorithm);
+        List<String> gridLines = lines.subList(2, lines.size()).stream()
+                .filter(Predicate.not(String::isBlank))
+                .collect(Collectors.toList());
+        return ImageGrid.of(gridLines, enhancementAlgorithm);
+    }
 
-            for (int i = 0; i < 50; i++) {
-                image = image.enhance();
-            }
-            System.out.println();
-            image.print();
-            System.out.println(image.lightPixels());
-        }
+    @Override
+    public Object part1(ImageGrid image) {
+        return Instrumentation.measure("enhance", () -> image.lightPixelsAfter(2));
+    }
+
+    @Override
+    public Object part2(ImageGrid image) {
+        return Instrumentation.measure("enhance", () -> image.lightPixelsAfter(50));
     }
 
     @Value
-    private static class ImageGrid {
-        boolean isLightEdge;
-        boolean[][] grid;
+    static class ImageGrid {
+        private static final ThreadLocal<Map<Long, BitGrid[]>> SCRATCH = ThreadLocal.withInitial(HashMap::new);
+        private static final int MAX_SCRATCH_SIZES = 4;
+
+        BitGrid grid;
         EnhancementAlgorithm algorithm;
 
         public static ImageGrid of(List<String> gridLines, EnhancementAlgorithm algorithm) {
-            boolean[][] grid = new boolean[gridLines.size()][gridLines.get(0).length()];
-            for (int i = 0; i < gridLines.size(); i++) {
-                for (int j = 0; j < gridLines.get(0).length(); j++) {
-                    grid[i][j] = gridLines.get(i).charAt(j) == '#';
+            BitGrid grid = new BitGrid(gridLines.size(), gridLines.get(0).length(), false);
+            for (int i = 0; i < grid.height(); i++) {
+                for (int j = 0; j < grid.width(); j++) {
+                    grid.set(i, j, gridLines.get(i).charAt(j) == '#');
                 }
             }
-            return new ImageGrid(false, grid, algorithm);
+            return new ImageGrid(grid, algorithm);
         }
 
-        public ImageGrid enhance() {
-            boolean[][] newGrid = new boolean[grid.length + 2][grid[0].length + 2];
-            for (int i = 0; i < newGrid.length; i++) {
-                for (int j = 0; j < newGrid[0].length; j++) {
-                    newGrid[i][j] = calculateEnhancedPixel(i - 1, j - 1);
+        /**
+         * Enhances the image {@code times} times back and forth between two grids of the final size, kept per
+         * thread for the next image of the same size. After {@code step} steps the image covers the window
+         * {@code times - step} cells away from the grid borders, and everything outside is the edge colour.
+         */
+        public int lightPixelsAfter(int times) {
+            int height = grid.height() + 2 * times;
+            int width = grid.width() + 2 * times;
+            BitGrid[] buffers = scratch(height, width);
+            BitGrid current = buffers[0];
+            BitGrid next = buffers[1];
+            current.clear();
+            for (int i = 0; i < grid.height(); i++) {
+                for (int j = 0; j < grid.width(); j++) {
+                    current.set(i + times, j + times, grid.get(i, j));
                 }
             }
-            boolean isNewImageLightEdge = isLightEdge ? algorithm.isLight(511) : algorithm.isLight(0);
-            return new ImageGrid(isNewImageLightEdge, newGrid, algorithm);
-        }
-
-        private boolean calculateEnhancedPixel(int i, int j) {
-            StringBuilder binaryString = new StringBuilder();
-            for (int newI = i - 1; newI <= i + 1; newI++) {
-                for (int newJ = j - 1; newJ <= j + 1; newJ++) {
-                    binaryString.append(isLight(newI, newJ) ? "1" : "0");
-                }
+            boolean isLightEdge = false;
+            for (int step = 1; step <= times; step++) {
+                enhance(current, next, times - step + 1, isLightEdge);
+                isLightEdge = isLightEdge ? algorithm.isLight(511) : algorithm.isLight(0);
+                BitGrid enhanced = next;
+                next = current;
+                current = enhanced;
             }
-            int position = Integer.parseInt(binaryString.toString(), 2);
-            return algorithm.isLight(position);
+            if (isLightEdge) {
+                throw new IllegalStateException("It's all light");
+            }
+            return current.cardinality();
         }
 
-        private boolean isLight(int i, int j) {
-            return isOutsideGrid(i, j) ? isLightEdge : grid[i][j];
+        private static BitGrid[] scratch(int height, int width) {
+            Map<Long, BitGrid[]> scratch = SCRATCH.get();
+            if (scratch.size() >= MAX_SCRATCH_SIZES && !scratch.containsKey(Coordinates.pack(height, width))) {
+                scratch.clear();
+            }
+            return scratch.computeIfAbsent(Coordinates.pack(height, width),
+                    ignored -> new BitGrid[]{new BitGrid(height, width, false), new BitGrid(height, width, false)});
         }
 
-        private boolean isOutsideGrid(int i, int j) {
-            return i < 0 || i >= grid.length || j < 0 || j >= grid[0].length;
+        /**
+         * Writes into {@code target} the image one step on from the one {@code margin} cells inside the borders
+         * of {@code source}. The new image covers one more cell on each side.
+         */
+        private void enhance(BitGrid source, BitGrid target, int margin, boolean isLightEdge) {
+            int fromRow = margin - 1;
+            int toRow = source.height() - margin + 1;
+            int fromColumn = margin - 1;
+            int toColumn = source.width() - margin + 1;
+            target.forEachRowStrip((stripFrom, stripTo) -> {
+                for (int i = Math.max(stripFrom, fromRow); i < Math.min(stripTo, toRow); i++) {
+                    for (int j = fromColumn; j < toColumn; j++) {
+                        target.set(i, j, calculateEnhancedPixel(source, margin, isLightEdge, i, j));
+                    }
+                }
+            });
         }
 
-        public int lightPixels() {
-            if (isLightEdge) {
-                throw new IllegalStateException("It's all light");
-            }
-            int lightPixels = 0;
-            for (int i = 0; i < grid.length; i++) {
-                for (int j = 0; j < grid[0].length; j++) {
-                    if (grid[i][j]) {
-                        lightPixels++;
-                    }
+        private boolean calculateEnhancedPixel(BitGrid source, int margin, boolean isLightEdge, int i, int j) {
+            int position = 0;
+            for (int k = 0; k < Grid.ROW_OFFSETS_8.length; k++) {
+                if (k == 4) {
+                    position = position << 1 | (isLight(source, margin, isLightEdge, i, j) ? 1 : 0);
                 }
+                position = position << 1 | (isLight(source, margin, isLightEdge,
+                        i + Grid.ROW_OFFSETS_8[k], j + Grid.COLUMN_OFFSETS_8[k]) ? 1 : 0);
             }
-            return lightPixels;
+            return algorithm.isLight(position);
+        }
+
+        private static boolean isLight(BitGrid source, int margin, boolean isLightEdge, int i, int j) {
+            boolean insideImage = i >= margin && i < source.height() - margin && j >= margin && j < source.width() - margin;
+            return insideImage ? source.get(i, j) : isLightEdge;
         }
 
         public void print() {
-            for (int i = 0; i < grid.length; i++) {
-                for (int j = 0; j < grid[0].length; j++) {
-                    System.out.print(grid[i][j] ? "#" : ".");
-                }
-                System.out.println();
-            }
+            System.out.print(grid);
         }
     }
 
@@ -112,9 +144,8 @@ public class Day20_ImageEnhancing {
         
         public static EnhancementAlgorithm of(String enhancementAlgorithmStr) {
             boolean[] lightConversions = new boolean[512];
-            String[] lightConversionsStr = enhancementAlgorithmStr.split("");
-            for (int i = 0; i < lightConversionsStr.length; i++) {
-                lightConversions[i] = lightConversionsStr[i].equals("#");
+            for (int i = 0; i < enhancementAlgorithmStr.length(); i++) {
+                lightConversions[i] = enhancementAlgorithmStr.charAt(i) == '#';
             }
             return new EnhancementAlgorithm(lightConversions);
         }
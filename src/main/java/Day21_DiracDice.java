@@ -1,33 +1,45 @@
 import lombok.EqualsAndHashCode;
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
-import java.util.stream.Collectors;
 
-public class Day21_DiracDice {
+public class Day21_DiracDice implements Solver<Day21_DiracDice.PlayersState> {
     private static final int WINNING_SCORE = 21;
+    private static final int DETERMINISTIC_WINNING_SCORE = 1000;
 
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/21.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day21_DiracDice(), args);
+    }
 
-            List<String> lines = br.lines().collect(Collectors.toList());
+    @Override
+    public int day() {
+        return 21;
+    }
 
-            Play play = new Play(
-                    new PlayersState(PlayerState.of(lines.get(0)), PlayerState.of(lines.get(1)), true)
-            );
+    @Override
+    public PlayersState parse(List<String> lines) {
+        return new PlayersState(PlayerState.of(lines.get(0)), PlayerState.of(lines.get(1)), true);
+    }
 
-            System.out.println(play.winnerWinsCount());
-        }
+    @Override
+    public Object part1(PlayersState initialState) {
+        Die die = new Die();
+        PlayersState state = Instrumentation.measure("deterministic game", () -> {
+            PlayersState currentState = initialState;
+            while (currentState.first.score < DETERMINISTIC_WINNING_SCORE && currentState.second.score < DETERMINISTIC_WINNING_SCORE) {
+                currentState = currentState.progress(die.roll() + die.roll() + die.roll());
+            }
+            return currentState;
+        });
+        return (long) Math.min(state.first.score, state.second.score) * die.timesRolled();
+    }
+
+    @Override
+    public Object part2(PlayersState initialState) {
+        return Instrumentation.measure("dirac game", () -> new Play(initialState)).winnerWinsCount();
     }
 
     private static class Play {
@@ -116,7 +128,7 @@ public class Day21_DiracDice {
     }
 
     @Value
-    private static class PlayersState {
+    static class PlayersState {
         PlayerState first;
         PlayerState second;
         boolean isFirstNextTurn;
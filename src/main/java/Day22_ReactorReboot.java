@@ -1,36 +1,49 @@
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class Day22_ReactorReboot {
+public class Day22_ReactorReboot implements Solver<List<Day22_ReactorReboot.RebootRule>> {
     private static final int COORDINATES_LIMIT = 50;
 
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/22.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day22_ReactorReboot(), args);
+    }
 
-            List<String> lines = br.lines().collect(Collectors.toList());
+    @Override
+    public int day() {
+        return 22;
+    }
 
-            List<RebootRule> rebootRules = lines.stream()
-                    .map(RebootRule::of)
-                    .filter(rule -> Objects.nonNull(rule.cuboid))
-                    .collect(Collectors.toList());
+    @Override
+    public List<RebootRule> parse(List<String> lines) {
+        return lines.stream()
+                .filter(Predicate.not(String::isBlank))
+                .map(RebootRule::of)
+                .filter(rule -> Objects.nonNull(rule.cuboid))
+                .collect(Collectors.toList());
+    }
 
-            RebootProcessor rebootProcessor = new RebootProcessor(rebootRules);
+    @Override
+    public Object part1(List<RebootRule> rebootRules) {
+        List<RebootRule> initializationRules = Instrumentation.measure("trim rules", () -> rebootRules.stream()
+                .map(rule -> rule.trim(COORDINATES_LIMIT))
+                .filter(rule -> Objects.nonNull(rule.cuboid))
+                .collect(Collectors.toList()));
+        RebootProcessor rebootProcessor = Instrumentation.measure("apply rules", () -> new RebootProcessor(initializationRules));
+        return Instrumentation.measure("count cubes", rebootProcessor::enabledCubes);
+    }
 
-            System.out.println(rebootProcessor.enabledCubes());
-        }
+    @Override
+    public Object part2(List<RebootRule> rebootRules) {
+        RebootProcessor rebootProcessor = Instrumentation.measure("apply rules", () -> new RebootProcessor(rebootRules));
+        return Instrumentation.measure("count cubes", rebootProcessor::enabledCubes);
     }
 
     private static class RebootProcessor {
@@ -84,14 +97,17 @@ public class Day22_ReactorReboot {
     }
 
     @Value
-    private static class RebootRule {
+    static class RebootRule {
         public static RebootRule of(String rebootRuleStr) {
             OperationType operationType = OperationType.valueOf(rebootRuleStr.substring(0, rebootRuleStr.indexOf(" ")).toUpperCase());
             Cuboid cuboid = Cuboid.of(rebootRuleStr.substring(rebootRuleStr.indexOf("x")));
-//            cuboid = cuboid.trim(COORDINATES_LIMIT);
             return new RebootRule(operationType, cuboid);
         }
 
+        public RebootRule trim(int limit) {
+            return new RebootRule(operationType, cuboid.trim(limit));
+        }
+
         OperationType operationType;
         Cuboid cuboid;
     }
@@ -122,9 +138,9 @@ public class Day22_ReactorReboot {
         int z2;
 
         public Cuboid trim(int limit) {
-            if (x2 <= -limit || x1 >= limit
-                    || y2 <= -limit || y1 >= limit
-                    || z2 <= -limit || z1 >= limit) {
+            if (x2 < -limit || x1 > limit
+                    || y2 < -limit || y1 > limit
+                    || z2 < -limit || z1 > limit) {
                 return null;
             }
             return new Cuboid(
@@ -1,9 +1,5 @@
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -16,45 +12,82 @@ import java.util.Set;
 import java.util.Stack;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class Day23_AmphipodMoving {
-    private static final int ROOM_SIZE = 4;
+public class Day23_AmphipodMoving implements Solver<List<String>> {
+    private static final int FOLDED_BURROW_LINES = 5;
+    private static final List<String> FOLDED_ROOM_LINES = List.of(
+            "  #D#C#B#A#",
+            "  #D#B#A#C#"
+    );
 
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/23.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
-
-            List<String> lines = br.lines().collect(Collectors.toList());
-            MoveState initialState = initializeState(lines);
-            Stack<MoveState> possibleStates = new Stack<>();
-            possibleStates.push(initialState);
-            int lowestEnergyCost = Integer.MAX_VALUE;
-            while (!possibleStates.isEmpty()) {
-                MoveState currentState = possibleStates.pop();
-                if (currentState.energyCost >= lowestEnergyCost) {
-                    continue;
-                }
-                if (currentState.isFinished()) {
-                    lowestEnergyCost = currentState.energyCost;
-                    continue;
-                }
+        SolverRunner.run(new Day23_AmphipodMoving(), args);
+    }
 
-                MoveState goToRoomState = tryMoveToRoom(currentState);
-                if (goToRoomState != null) {
-                    possibleStates.push(goToRoomState);
-                    continue;
-                }
-                List<MoveState> newPossibleStates = calculateNewPossibleStates(currentState);
-                for (MoveState newPossibleState : newPossibleStates) {
-                    possibleStates.push(newPossibleState);
-                }
-            }
+    @Override
+    public int day() {
+        return 23;
+    }
+
+    @Override
+    public List<String> parse(List<String> lines) {
+        return lines.stream().filter(Predicate.not(String::isBlank)).collect(Collectors.toList());
+    }
+
+    @Override
+    public Object part1(List<String> lines) {
+        MoveState initialState = Instrumentation.measure("initialize", () -> initializeState(lines));
+        return Instrumentation.measure("search", () -> findLowestEnergyCost(initialState));
+    }
+
+    @Override
+    public Object part2(List<String> lines) {
+        List<String> unfoldedLines = lines.size() == FOLDED_BURROW_LINES ? unfold(lines) : lines;
+        MoveState initialState = Instrumentation.measure("initialize", () -> initializeState(unfoldedLines));
+        return Instrumentation.measure("search", () -> findLowestEnergyCost(initialState));
+    }
 
+    /**
+     * Inserts the two hidden room rows into a burrow with two room rows. Part 2 of an input that is already
+     * unfolded solves it as given.
+     */
+    private static List<String> unfold(List<String> lines) {
+        List<String> unfoldedLines = new ArrayList<>(lines.subList(0, 3));
+        unfoldedLines.addAll(FOLDED_ROOM_LINES);
+        unfoldedLines.addAll(lines.subList(3, lines.size()));
+        return unfoldedLines;
+    }
 
-            System.out.println(lowestEnergyCost);
+    private static int findLowestEnergyCost(MoveState initialState) {
+        Stack<MoveState> possibleStates = new Stack<>();
+        possibleStates.push(initialState);
+        int lowestEnergyCost = Integer.MAX_VALUE;
+        while (!possibleStates.isEmpty()) {
+            MoveState currentState = possibleStates.pop();
+            if (currentState.energyCost >= lowestEnergyCost) {
+                continue;
+            }
+            if (currentState.isFinished()) {
+                lowestEnergyCost = currentState.energyCost;
+                continue;
+            }
+
+            MoveState goToRoomState = tryMoveToRoom(currentState);
+            if (goToRoomState != null) {
+                possibleStates.push(goToRoomState);
+                continue;
+            }
+            List<MoveState> newPossibleStates = calculateNewPossibleStates(currentState);
+            for (MoveState newPossibleState : newPossibleStates) {
+                possibleStates.push(newPossibleState);
+            }
+        }
+        if (lowestEnergyCost == Integer.MAX_VALUE) {
+            throw new IllegalStateException("No solution");
         }
+        return lowestEnergyCost;
     }
 
     private static List<MoveState> calculateNewPossibleStates(MoveState currentState) {
@@ -128,9 +161,9 @@ public class Day23_AmphipodMoving {
     }
 
     private static MoveState initializeState(List<String> lines) {
-        int startLine = lines.size() - 2;
+        int roomSize = lines.size() - 3;
         Map<Integer, Stack<Amphipod>> roomStates = new TreeMap<>();
-        for (int i = startLine; i >= startLine - 4; i--) {
+        for (int i = lines.size() - 2; i >= 2; i--) {
             String line = lines.get(i);
             int currentRoomId = 0;
             String[] chars = line.split("#");
@@ -142,7 +175,9 @@ public class Day23_AmphipodMoving {
             }
         }
 
-        List<Room> rooms = roomStates.values().stream().map(Room::new).collect(Collectors.toList());
+        List<Room> rooms = roomStates.values().stream()
+                .map(amphipods -> new Room(roomSize, amphipods))
+                .collect(Collectors.toList());
         return new MoveState(0, new Burrow(new Hallway(Map.of()), rooms));
     }
 
@@ -229,6 +264,7 @@ public class Day23_AmphipodMoving {
 
     @Value
     private static class Room {
+        int size;
         Stack<Amphipod> amphipods;
 
         public boolean canEnter(Amphipod amphipod) {
@@ -236,14 +272,14 @@ public class Day23_AmphipodMoving {
         }
 
         public int stepsToEnter() {
-            return ROOM_SIZE - amphipods.size();
+            return size - amphipods.size();
         }
 
         public Room enter(Amphipod amphipod) {
             Stack<Amphipod> newAmphipods = new Stack<>();
             newAmphipods.addAll(amphipods);
             newAmphipods.push(amphipod);
-            return new Room(newAmphipods);
+            return new Room(size, newAmphipods);
         }
 
         public boolean canLeave(int currentRoomId) {
@@ -258,14 +294,14 @@ public class Day23_AmphipodMoving {
         }
 
         public int stepsToLeave() {
-            return (ROOM_SIZE - amphipods.size()) + 1;
+            return (size - amphipods.size()) + 1;
         }
 
         public Room leave() {
             Stack<Amphipod> newAmphipods = new Stack<>();
             newAmphipods.addAll(amphipods);
             newAmphipods.pop();
-            return new Room(newAmphipods);
+            return new Room(size, newAmphipods);
         }
     }
 
@@ -308,13 +344,13 @@ public class Day23_AmphipodMoving {
             List<ArrayList<Amphipod>> roomsLists = mapToRoomLists(burrow);
             System.out.println("#############");
             printHallway(burrow.hallway);
-            printRooms(roomsLists);
+            printRooms(roomsLists, burrow.rooms.get(0).size);
             System.out.println();
         }
 
-        private void printRooms(List<ArrayList<Amphipod>> roomsLists) {
-            for (int i = 0; i < ROOM_SIZE + 1; i++) {
-                if (i == ROOM_SIZE) {
+        private void printRooms(List<ArrayList<Amphipod>> roomsLists, int roomSize) {
+            for (int i = 0; i < roomSize + 1; i++) {
+                if (i == roomSize) {
                     System.out.print("  #########");
                     continue;
                 }
@@ -346,11 +382,12 @@ public class Day23_AmphipodMoving {
         }
 
         private List<ArrayList<Amphipod>> mapToRoomLists(Burrow burrow) {
+            int roomSize = burrow.rooms.get(0).size;
             return burrow.rooms.stream().map(room -> room.amphipods)
                     .map(ArrayList::new)
                     .peek(Collections::reverse)
                     .peek(list -> {
-                        while (list.size() != ROOM_SIZE) {
+                        while (list.size() != roomSize) {
                             list.add(0, null);
                         }
                     })
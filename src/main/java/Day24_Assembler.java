@@ -3,43 +3,60 @@ import lombok.RequiredArgsConstructor;
 import lombok.Value;
 
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-public class Day24_Assembler {
+public class Day24_Assembler implements Solver<List<Day24_Assembler.Command>> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/24.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
-
-            List<Command> commands = br.lines().map(Command::of).collect(Collectors.toList());
-            int groupCounter = 1;
-
-            Equation zEquation = Lit.ZERO;
-            int lastValue = -1;
-            int position = -1;
-            for (Command command : commands) {
-                if (Objects.equals(command.name, "inp")) {
-                    groupCounter = 1;
-                    position++;
-                } else if (groupCounter++ == 15) {
-                    zEquation = new Add(
-                            new Mul(zEquation, new Lit(26)),
-                            new Add(new Var("i[" + position + "]"), new Lit(Integer.parseInt(command.args[1])))
-                    );
-                }
+        SolverRunner.run(new Day24_Assembler(), args);
+    }
+
+    @Override
+    public int day() {
+        return 24;
+    }
+
+    @Override
+    public List<Command> parse(List<String> lines) {
+        return lines.stream()
+                .filter(Predicate.not(String::isBlank))
+                .map(Command::of)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Object part1(List<Command> commands) {
+        return Instrumentation.measure("build z equation", () -> zEquation(commands)).toString();
+    }
+
+    @Override
+    public Object part2(List<Command> commands) {
+        return null;
+    }
+
+    private static Equation zEquation(List<Command> commands) {
+        int groupCounter = 1;
+        Equation zEquation = Lit.ZERO;
+        int position = -1;
+        for (Command command : commands) {
+            if (Objects.equals(command.name, "inp")) {
+                groupCounter = 1;
+                position++;
+            } else if (groupCounter++ == 15) {
+                zEquation = new Add(
+                        new Mul(zEquation, new Lit(26)),
+                        new Add(new Var("i[" + position + "]"), new Lit(Integer.parseInt(command.args[1])))
+                );
             }
-            System.out.println(zEquation);
         }
+        return zEquation;
     }
 
     private static void madness(BufferedReader br) {
@@ -417,7 +434,7 @@ public class Day24_Assembler {
     }
 
     @Value
-    private static class Command {
+    static class Command {
         String name;
         String[] args;
 
@@ -1,49 +1,54 @@
-import lombok.Value;
+import java.util.List;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
-import java.util.Arrays;
-import java.util.Stack;
-import java.util.concurrent.atomic.AtomicInteger;
-
-public class Day25_MovingCucumbers {
+public class Day25_MovingCucumbers implements Solver<ByteGrid> {
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/25.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        SolverRunner.run(new Day25_MovingCucumbers(), args);
+    }
 
-            String[] lines = br.lines().toArray(String[]::new);
+    @Override
+    public int day() {
+        return 25;
+    }
 
-            char[][] board = new char[lines.length][lines.length];
-            for (int i = 0; i < lines.length; i++) {
-                char[] row = lines[i].toCharArray();
-                board[i] = row;
-            }
+    @Override
+    public ByteGrid parse(List<String> lines) {
+        return parse(InputCursor.of(lines));
+    }
 
-            CucumberBoard cucumberBoard = new CucumberBoard(board);
+    @Override
+    public ByteGrid parse(InputCursor cursor) {
+        return ByteGrid.parseCharacters(cursor, true);
+    }
 
-            cucumberBoard.waitTillStop();
-            cucumberBoard.print();
-            System.out.println(cucumberBoard.getStep());
-        }
+    @Override
+    public Object part1(ByteGrid board) {
+        CucumberBoard cucumberBoard = new CucumberBoard(board);
+        Instrumentation.measure("move herds", cucumberBoard::waitTillStop);
+        return cucumberBoard.getStep();
+    }
+
+    @Override
+    public Object part2(ByteGrid board) {
+        return null;
     }
 
+    /**
+     * Each herd moves in two passes over row strips: the first marks who can move looking only at the board,
+     * the second moves them. A free cell has a single cucumber that can move into it, so strips never collide.
+     */
     private static class CucumberBoard {
-        private final Cucumber[][] board;
-        private final boolean[][] moveBoard;
+        private static final byte EMPTY = '.';
+        private static final byte RIGHT = '>';
+        private static final byte DOWN = 'v';
+
+        private final ByteGrid board;
+        private final BitGrid moveBoard;
 
         private int step;
 
-        private CucumberBoard(char[][] inputBoard) {
-            this.board = new Cucumber[inputBoard.length][inputBoard[0].length];
-            this.moveBoard = new boolean[inputBoard.length][inputBoard[0].length];
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[0].length; j++) {
-                    this.board[i][j] = Cucumber.of(inputBoard[i][j]);
-                }
-            }
+        private CucumberBoard(ByteGrid inputBoard) {
+            this.board = inputBoard.copy();
+            this.moveBoard = new BitGrid(board.height(), board.width(), false);
         }
 
         public int getStep() {
@@ -53,112 +58,43 @@ public class Day25_MovingCucumbers {
         public void waitTillStop() {
             boolean anyCucumberMoved;
             do {
-                anyCucumberMoved = false;
-                for (int i = 0; i < board.length; i++) {
-                    for (int j = 0; j < board[0].length; j++) {
-                        Cucumber cucumber = this.board[i][j];
-                        if (cucumber == null) continue;
-                        if (cucumber.direction == Direction.RIGHT) {
-                            moveBoard[i][j] = canMoveRight(i, j);
-                        }
-                    }
-                }
-                for (int i = 0; i < board.length; i++) {
-                    for (int j = 0; j < board[0].length; j++) {
-                        if (moveBoard[i][j]) {
-                            moveRight(i, j);
-                            moveBoard[i][j] = false;
-                            anyCucumberMoved = true;
-                        }
-                    }
-                }
-                for (int j = 0; j < board[0].length; j++) {
-                    for (int i = 0; i < board.length; i++) {
-                        Cucumber cucumber = this.board[i][j];
-                        if (cucumber == null) continue;
-                        if (cucumber.direction == Direction.DOWN) {
-                            moveBoard[i][j] = canMoveDown(i, j);
-                        }
-                    }
-                }
-                for (int i = 0; i < board.length; i++) {
-                    for (int j = 0; j < board[0].length; j++) {
-                        if (moveBoard[i][j]) {
-                            moveDown(i, j);
-                            moveBoard[i][j] = false;
-                            anyCucumberMoved = true;
-                        }
-                    }
-                }
+                board.forEachRowStrip((fromRow, toRow) -> markMoves(fromRow, toRow, RIGHT, 0, 1));
+                long movedRight = board.sumRowStrips((fromRow, toRow) -> move(fromRow, toRow, 0, 1));
+                board.forEachRowStrip((fromRow, toRow) -> markMoves(fromRow, toRow, DOWN, 1, 0));
+                long movedDown = board.sumRowStrips((fromRow, toRow) -> move(fromRow, toRow, 1, 0));
+                anyCucumberMoved = movedRight + movedDown > 0;
                 step++;
-                if (step <= 5 || step % 10 == 0 || step >= 55) {
-//                    this.print();
-                }
             } while (anyCucumberMoved);
-
         }
 
-        private boolean canMoveRight(int i, int j) {
-            int nextJ = j == board[0].length - 1 ? 0 : j + 1;
-            return board[i][nextJ] == null;
-        }
-
-        private void moveRight(int i, int j) {
-            int nextJ = j == board[0].length - 1 ? 0 : j + 1;
-            move(i, j, i, nextJ);
-        }
-
-        private boolean canMoveDown(int i, int j) {
-            int nextI = i == board.length - 1 ? 0 : i + 1;
-            return board[nextI][j] == null;
-        }
-
-        private void moveDown(int i, int j) {
-            int nextI = i == board.length - 1 ? 0 : i + 1;
-            move(i, j, nextI, j);
-        }
-
-        private void move(int fromI, int fromJ, int toI, int toJ) {
-            board[toI][toJ] = board[fromI][fromJ];
-            board[fromI][fromJ] = null;
-        }
-
-        public void print() {
-            System.out.println();
-            System.out.println("After "+step+" step:");
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[0].length; j++) {
-                    char c = board[i][j] == null ? '.' : board[i][j].direction.representation;
-                    System.out.print(c);
+        private void markMoves(int fromRow, int toRow, byte direction, int rowOffset, int columnOffset) {
+            for (int i = fromRow; i < toRow; i++) {
+                for (int j = 0; j < board.width(); j++) {
+                    boolean canMove = board.get(i, j) == direction
+                            && board.get(board.wrapRow(i + rowOffset), board.wrapColumn(j + columnOffset)) == EMPTY;
+                    moveBoard.set(i, j, canMove);
                 }
-                System.out.println();
             }
         }
-    }
-
-    @Value
-    private static class Cucumber {
-        Direction direction;
 
-        public static Cucumber of(char c) {
-            switch (c) {
-                case '>':
-                    return new Cucumber(Direction.RIGHT);
-                case 'v':
-                    return new Cucumber(Direction.DOWN);
-                default:
-                    return null;
+        private long move(int fromRow, int toRow, int rowOffset, int columnOffset) {
+            long moved = 0;
+            for (int i = fromRow; i < toRow; i++) {
+                for (int j = 0; j < board.width(); j++) {
+                    if (moveBoard.get(i, j)) {
+                        board.set(board.wrapRow(i + rowOffset), board.wrapColumn(j + columnOffset), board.get(i, j));
+                        board.set(i, j, EMPTY);
+                        moved++;
+                    }
+                }
             }
+            return moved;
         }
-    }
-
-    private enum Direction {
-        RIGHT('>'), DOWN('v');
-
-        private char representation;
 
-        Direction(char representation) {
-            this.representation = representation;
+        public void print() {
+            System.out.println();
+            System.out.println("After " + step + " step:");
+            System.out.print(board);
         }
     }
 }
@@ -1,54 +1,440 @@
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
-import java.time.Duration;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-public class Day6_InfiniteSpawningFish {
+public class Day6_InfiniteSpawningFish implements Solver<long[]> {
+    private static final int TIME_TO_SPAWN = 7;
+    private static final int INITIAL_TIME_TO_SPAWN = 9;
+    static final int TIMERS = INITIAL_TIME_TO_SPAWN;
+    private static final long HISTOGRAM_RANGE_BYTES = 4 << 20;
+    private static final int PART1_DAYS = 80;
+    private static final int PART2_DAYS = 256;
+    /**
+     * One table up to the longest puzzle horizon, shared by both parts.
+     */
+    private static final FishForecast PUZZLE_FORECAST = new FishForecast(PART2_DAYS);
+
+    /**
+     * Without options solves both parts; {@code --days=N [--modulo=P]} instead prints the number of fish after
+     * {@code N} days, exact or modulo the prime {@code P}, through {@link #fishSpawnedExact} or
+     * {@link #fishSpawnedModulo}, and {@code --horizons=H1,H2,...} reads one population per line and prints the
+     * fish of each after every horizon through {@link FishForecast#fishSpawned(List, int[])}. The optional other
+     * argument is the input file.
+     */
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/6.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        List<String> inputArgs = new ArrayList<>();
+        Long days = null;
+        Long modulo = null;
+        int[] horizons = null;
+        for (String arg : args) {
+            if (arg.startsWith("--days=")) {
+                days = Long.parseLong(arg.substring("--days=".length()));
+            } else if (arg.startsWith("--modulo=")) {
+                modulo = Long.parseLong(arg.substring("--modulo=".length()));
+            } else if (arg.startsWith("--horizons=")) {
+                horizons = Arrays.stream(arg.substring("--horizons=".length()).split(","))
+                        .mapToInt(Integer::parseInt)
+                        .toArray();
+            } else {
+                inputArgs.add(arg);
+            }
+        }
+        if (horizons != null) {
+            printForecasts(inputArgs.isEmpty() ? InputFiles.forDay(6) : Paths.get(inputArgs.get(0)), horizons);
+            return;
+        }
+        if (days == null) {
+            SolverRunner.run(new Day6_InfiniteSpawningFish(), args);
+            return;
+        }
+        long startTs = System.nanoTime();
+        long[] histogram = parseHistogram(inputArgs.isEmpty() ? InputFiles.forDay(6) : Paths.get(inputArgs.get(0)));
+        long parsedTs = System.nanoTime();
+        Object fish = modulo == null ? fishSpawnedExact(histogram, days) : fishSpawnedModulo(histogram, days, modulo);
+        long endTs = System.nanoTime();
+        System.out.println("Fish after " + days + " days" + (modulo == null ? "" : " mod " + modulo) + ": " + fish);
+        System.out.println("Parse - " + (parsedTs - startTs) / 1000 + " us, solve - " + (endTs - parsedTs) / 1000 + " us");
+    }
 
-//            String[] lines = br.lines().toArray(String[]::new);
+    private static void printForecasts(Path input, int[] horizons) throws IOException {
+        long startTs = System.nanoTime();
+        List<int[]> populations = InputFiles.open(input).remainingLines().stream()
+                .filter(line -> !line.isBlank())
+                .map(line -> InputCursor.of(line).remainingInts())
+                .collect(Collectors.toList());
+        long parsedTs = System.nanoTime();
+        long[][] fish = FishForecast.fishSpawned(populations, horizons);
+        long endTs = System.nanoTime();
+        System.out.println("population\t" + Arrays.stream(horizons).mapToObj(String::valueOf).collect(Collectors.joining("\t")));
+        for (int population = 0; population < fish.length; population++) {
+            System.out.println(population + "\t" + Arrays.stream(fish[population]).mapToObj(String::valueOf).collect(Collectors.joining("\t")));
+        }
+        System.out.println("Parse - " + (parsedTs - startTs) / 1000 + " us, solve - " + (endTs - parsedTs) / 1000 + " us");
+    }
 
-            int[] fishes = Arrays.stream(br.readLine().split(",")).mapToInt(Integer::parseInt).toArray();
+    @Override
+    public int day() {
+        return 6;
+    }
 
-            long startTs = System.nanoTime();
-            long totalFish = fishSpawned(fishes, 256);
-            long endTs = System.nanoTime();
+    @Override
+    public long[] parse(List<String> lines) {
+        return parse(InputCursor.of(lines));
+    }
 
-            System.out.println(totalFish + ", time took - " + Duration.ofNanos(endTs - startTs).toMillis());
+    /**
+     * Timers may only be separated by {@code ','} and line ends, as in {@link #parseHistogram(Path)}.
+     */
+    @Override
+    public long[] parse(InputCursor cursor) {
+        long[] histogram = new long[TIMERS];
+        boolean inNumber = false;
+        long value = 0;
+        int numberStart = 0;
+        for (int position = cursor.position(); position < cursor.limit(); position++) {
+            byte b = cursor.byteAt(position);
+            if (isDigit(b)) {
+                if (!inNumber) {
+                    inNumber = true;
+                    numberStart = position;
+                    value = 0;
+                }
+                value = appendDigit(value, b, numberStart);
+            } else {
+                checkSeparator(b, position);
+                if (inNumber) {
+                    count(histogram, value, numberStart);
+                    inNumber = false;
+                }
+            }
+        }
+        if (inNumber) {
+            count(histogram, value, numberStart);
         }
+        return histogram;
     }
 
-    private static final int TIME_TO_SPAWN = 7;
-    private static final int INITIAL_TIME_TO_SPAWN = 9;
+    /**
+     * A fish list too large to map is read by {@link #parseHistogram(Path)}.
+     */
+    @Override
+    public long[] parse(Path path) throws IOException {
+        return parseHistogram(path);
+    }
+
+    @Override
+    public Object part1(long[] histogram) {
+        return fishSpawned(histogram, PART1_DAYS);
+    }
+
+    @Override
+    public Object part2(long[] histogram) {
+        return fishSpawned(histogram, PART2_DAYS);
+    }
+
+    private static long fishSpawned(long[] histogram, int days) {
+        return Instrumentation.measure("count fish", () -> PUZZLE_FORECAST.fishSpawned(histogram, days));
+    }
+
+    /**
+     * Number of fish per timer value.
+     */
+    static long[] histogram(int[] fishes) {
+        long[] histogram = new long[TIMERS];
+        for (int daysToSpawn : fishes) {
+            count(histogram, daysToSpawn);
+        }
+        return histogram;
+    }
+
+    private static void count(long[] histogram, int daysToSpawn) {
+        if (daysToSpawn < 0 || daysToSpawn >= TIMERS) {
+            throw new IllegalArgumentException("Timer " + daysToSpawn + " is not in [0, " + TIMERS + ")");
+        }
+        histogram[daysToSpawn]++;
+    }
+
+    private static void count(long[] histogram, long daysToSpawn, long numberStart) {
+        if (daysToSpawn >= TIMERS) {
+            throw new IllegalArgumentException("Timer " + daysToSpawn + " at byte " + numberStart + " is not in [0, " + TIMERS + ")");
+        }
+        histogram[(int) daysToSpawn]++;
+    }
+
+    private static long appendDigit(long value, byte digit, long numberStart) {
+        try {
+            return Math.addExact(Math.multiplyExact(value, 10), digit - '0');
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Timer at byte " + numberStart + " does not fit a long");
+        }
+    }
+
+    private static void checkSeparator(byte b, long position) {
+        if (b != ',' && b != '\n' && b != '\r') {
+            throw new IllegalArgumentException("Unexpected byte " + (b & 0xFF) + " ('" + (char) (b & 0xFF) + "') at byte "
+                    + position + ", timers are separated by ',' and line ends");
+        }
+    }
+
+    /**
+     * Timer histogram of a comma separated fish list of any size, read straight from the file in constant memory.
+     * Files above a few megabytes are split into byte ranges parsed in parallel, where a number belongs to the
+     * range its first digit is in, and the partial histograms are summed. Timers may only be separated by
+     * {@code ','} and line ends, and a timer outside {@code [0, 9)} is rejected with its position.
+     */
+    static long[] parseHistogram(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int ranges = (int) Math.max(1, Math.min(size / HISTOGRAM_RANGE_BYTES, ForkJoinPool.getCommonPoolParallelism() * 4L));
+            long rangeSize = (size + ranges - 1) / ranges;
+            return IntStream.range(0, ranges)
+                    .parallel()
+                    .mapToObj(range -> {
+                        try {
+                            return parseHistogram(channel, range * rangeSize, Math.min(size, (range + 1) * rangeSize));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .reduce(new long[TIMERS], (left, right) -> {
+                        long[] sum = new long[TIMERS];
+                        Arrays.setAll(sum, timer -> left[timer] + right[timer]);
+                        return sum;
+                    });
+        }
+    }
+
+    private static long[] parseHistogram(FileChannel channel, long from, long to) throws IOException {
+        long[] histogram = new long[TIMERS];
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long position = from;
+        boolean skippingPreviousNumber = from > 0 && isDigit(readByte(channel, from - 1));
+        boolean inNumber = false;
+        long value = 0;
+        long numberStart = 0;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++, position++) {
+                byte b = buffer.get(i);
+                if (isDigit(b)) {
+                    if (skippingPreviousNumber) {
+                        continue;
+                    }
+                    if (!inNumber) {
+                        if (position >= to) {
+                            return histogram;
+                        }
+                        inNumber = true;
+                        numberStart = position;
+                        value = 0;
+                    }
+                    value = appendDigit(value, b, numberStart);
+                } else {
+                    if (position < to) {
+                        checkSeparator(b, position);
+                    }
+                    skippingPreviousNumber = false;
+                    if (inNumber) {
+                        count(histogram, value, numberStart);
+                        inNumber = false;
+                    }
+                    if (position >= to) {
+                        return histogram;
+                    }
+                }
+            }
+        }
+        if (inNumber) {
+            count(histogram, value, numberStart);
+        }
+        return histogram;
+    }
+
+    private static byte readByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        return channel.read(buffer, position) == 1 ? buffer.get(0) : 0;
+    }
 
-    private static long fishSpawned(int[] initialFishes, int days) {
-        Map<Integer, Long> calculatedFishSpawned = createCalculatedFishSpawnedDictionary(days);
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Fish after {@code days} days modulo {@code modulus}: the one day transition of the timer histogram is a
+     * 9x9 matrix, raised to the power {@code days} by squaring in O(9^3 log days). The modulus has to stay
+     * below 2^31 so products of two residues fit in a {@code long}.
+     */
+    static long fishSpawnedModulo(long[] histogram, long days, long modulus) {
+        if (modulus < 2 || modulus > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Modulus " + modulus + " is not in [2, 2^31)");
+        }
+        long[][] power = identity();
+        long[][] base = transition();
+        for (long exponent = days; exponent > 0; exponent >>= 1) {
+            if ((exponent & 1) == 1) {
+                power = multiply(power, base, modulus);
+            }
+            if (exponent > 1) {
+                base = multiply(base, base, modulus);
+            }
+        }
+        long total = 0;
+        for (int to = 0; to < TIMERS; to++) {
+            for (int from = 0; from < TIMERS; from++) {
+                total = (total + power[to][from] * (histogram[from] % modulus)) % modulus;
+            }
+        }
+        return total;
+    }
 
-        long totalFish = 0;
-        for (int daysToSpawn : initialFishes) {
-            int daysAfterBirth = (days - daysToSpawn) + INITIAL_TIME_TO_SPAWN;
-            totalFish += calculatedFishSpawned.get(daysAfterBirth) + 1;
+    /**
+     * Exact fish after {@code days} days by the same matrix power as {@link #fishSpawnedModulo}. The count grows
+     * by about 0.126 bits a day, so this is meant for horizons up to some million days.
+     */
+    static BigInteger fishSpawnedExact(long[] histogram, long days) {
+        BigInteger[][] power = toBigIntegers(identity());
+        BigInteger[][] base = toBigIntegers(transition());
+        for (long exponent = days; exponent > 0; exponent >>= 1) {
+            if ((exponent & 1) == 1) {
+                power = multiply(power, base);
+            }
+            if (exponent > 1) {
+                base = multiply(base, base);
+            }
         }
+        BigInteger total = BigInteger.ZERO;
+        for (int to = 0; to < TIMERS; to++) {
+            for (int from = 0; from < TIMERS; from++) {
+                total = total.add(power[to][from].multiply(BigInteger.valueOf(histogram[from])));
+            }
+        }
+        return total;
+    }
 
-        return totalFish;
+    /**
+     * {@code transition[to][from]} fish with timer {@code to} tomorrow per fish with timer {@code from} today.
+     */
+    private static long[][] transition() {
+        long[][] transition = new long[TIMERS][TIMERS];
+        for (int from = 1; from < TIMERS; from++) {
+            transition[from - 1][from] = 1;
+        }
+        transition[TIME_TO_SPAWN - 1][0] = 1;
+        transition[INITIAL_TIME_TO_SPAWN - 1][0] = 1;
+        return transition;
     }
 
-    private static Map<Integer, Long> createCalculatedFishSpawnedDictionary(int days) {
-        Map<Integer, Long> calculatedFishSpawned = new HashMap<>();
-        for (int i = 0; i < days + INITIAL_TIME_TO_SPAWN; i++) {
-            long fishSpawned = 0;
-            for (int j = i - INITIAL_TIME_TO_SPAWN; j > 0; j -= TIME_TO_SPAWN) {
-                fishSpawned += calculatedFishSpawned.get(j) + 1;
+    private static long[][] identity() {
+        long[][] identity = new long[TIMERS][TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            identity[i][i] = 1;
+        }
+        return identity;
+    }
+
+    private static long[][] multiply(long[][] left, long[][] right, long modulus) {
+        long[][] product = new long[TIMERS][TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            for (int k = 0; k < TIMERS; k++) {
+                long leftValue = left[i][k];
+                if (leftValue == 0) {
+                    continue;
+                }
+                for (int j = 0; j < TIMERS; j++) {
+                    product[i][j] = (product[i][j] + leftValue * right[k][j]) % modulus;
+                }
+            }
+        }
+        return product;
+    }
+
+    private static BigInteger[][] toBigIntegers(long[][] matrix) {
+        BigInteger[][] bigMatrix = new BigInteger[TIMERS][TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            for (int j = 0; j < TIMERS; j++) {
+                bigMatrix[i][j] = BigInteger.valueOf(matrix[i][j]);
             }
-            calculatedFishSpawned.put(i, fishSpawned);
         }
-        return calculatedFishSpawned;
+        return bigMatrix;
+    }
+
+    private static BigInteger[][] multiply(BigInteger[][] left, BigInteger[][] right) {
+        BigInteger[][] product = new BigInteger[TIMERS][TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            for (int j = 0; j < TIMERS; j++) {
+                BigInteger sum = BigInteger.ZERO;
+                for (int k = 0; k < TIMERS; k++) {
+                    if (left[i][k].signum() != 0 && right[k][j].signum() != 0) {
+                        sum = sum.add(left[i][k].multiply(right[k][j]));
+                    }
+                }
+                product[i][j] = sum;
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Answers fish counts for any population and any horizon up to {@code maxDays}. A fish with timer {@code t}
+     * has as many descendants after {@code d} days as a fish with timer 0 after {@code d - t} days, so the
+     * per-timer tables are shifted views of one table, {@code fishFromTimer[d + 8 - t]}, and a count is a 9-term
+     * dot product with the population's timer histogram.
+     */
+    static class FishForecast {
+        private final int maxDays;
+        private final long[] fishFromTimer;
+
+        FishForecast(int maxDays) {
+            this.maxDays = maxDays;
+            this.fishFromTimer = new long[maxDays + TIMERS];
+            for (int i = 0; i < fishFromTimer.length; i++) {
+                // a timer 0 fish spawns the next day, turning into a timer 6 fish and a new timer 8 one
+                fishFromTimer[i] = i < TIMERS ? 1 : Math.addExact(fishFromTimer[i - TIME_TO_SPAWN], fishFromTimer[i - INITIAL_TIME_TO_SPAWN]);
+            }
+        }
+
+        long fishSpawned(long[] histogram, int days) {
+            if (days < 0 || days > maxDays) {
+                throw new IllegalArgumentException("Horizon " + days + " is not in [0, " + maxDays + "]");
+            }
+            long total = 0;
+            for (int timer = 0; timer < TIMERS; timer++) {
+                total = Math.addExact(total, Math.multiplyExact(histogram[timer], fishFromTimer[days + TIMERS - 1 - timer]));
+            }
+            return total;
+        }
+
+        /**
+         * Fish of every population after every horizon, {@code [population][horizon]}, one population per task
+         * on the common pool.
+         */
+        static long[][] fishSpawned(List<int[]> populations, int[] horizons) {
+            FishForecast forecast = new FishForecast(Arrays.stream(horizons).max().orElse(0));
+            long[][] fish = new long[populations.size()][];
+            IntStream.range(0, populations.size()).parallel().forEach(population -> {
+                long[] histogram = histogram(populations.get(population));
+                long[] populationFish = new long[horizons.length];
+                for (int horizon = 0; horizon < horizons.length; horizon++) {
+                    populationFish[horizon] = forecast.fishSpawned(histogram, horizons[horizon]);
+                }
+                fish[population] = populationFish;
+            });
+            return fish;
+        }
     }
 }
@@ -1,40 +1,394 @@
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
+import lombok.Value;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-public class Day7_CrabsPosition {
+public class Day7_CrabsPosition implements Solver<int[]> {
+    /**
+     * Without options solves both parts; {@code --curve} instead prints the linear and triangular fuel of every
+     * alignment position from 0 to the farthest crab, tab separated, and {@code --model=linear|triangular|power:K}
+     * prints the cheapest alignment found by {@link FuelAligner} under that model, checking the linear and
+     * triangular ones against the parts. The optional other argument is the input file.
+     */
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/7.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        String model = Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--model="))
+                .map(arg -> arg.substring("--model=".length()))
+                .findFirst()
+                .orElse(null);
+        if (!Arrays.asList(args).contains("--curve") && model == null) {
+            SolverRunner.run(new Day7_CrabsPosition(), args);
+            return;
+        }
+        List<String> inputArgs = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).collect(Collectors.toList());
+        if (model != null) {
+            printAlignment(inputArgs.isEmpty() ? InputFiles.open(7) : InputFiles.open(Paths.get(inputArgs.get(0))), model);
+            return;
+        }
+        CrabHistogram histogram = CrabHistogram.of(inputArgs.isEmpty() ? InputFiles.open(7) : InputFiles.open(Paths.get(inputArgs.get(0))));
+        long[] linearCurve = histogram.linearCostCurve();
+        long[] triangularCurve = histogram.triangularCostCurve();
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        out.println("position\tlinear\ttriangular");
+        for (int position = 0; position < linearCurve.length; position++) {
+            out.println(position + "\t" + linearCurve[position] + "\t" + triangularCurve[position]);
+        }
+        out.flush();
+    }
 
-            int[] crabsPositions = Arrays.stream(br.readLine().split(",")).mapToInt(Integer::parseInt).toArray();
+    private static void printAlignment(InputCursor input, String modelName) {
+        int[] crabsPositions = input.remainingInts();
+        Day7_CrabsPosition solver = new Day7_CrabsPosition();
+        Object expectedFuel;
+        FuelCostModel model;
+        if (modelName.equals("linear")) {
+            model = FuelCostModel.LINEAR;
+            expectedFuel = solver.part1(crabsPositions.clone());
+        } else if (modelName.equals("triangular")) {
+            model = FuelCostModel.TRIANGULAR;
+            expectedFuel = solver.part2(crabsPositions.clone());
+        } else if (modelName.startsWith("power:")) {
+            int[] exponents = new int[crabsPositions.length];
+            Arrays.fill(exponents, Integer.parseInt(modelName.substring("power:".length())));
+            model = FuelCostModel.powers(exponents);
+            expectedFuel = null;
+        } else {
+            throw new IllegalArgumentException("Unknown fuel cost model " + modelName);
+        }
+        long startTs = System.nanoTime();
+        Alignment alignment = new FuelAligner(crabsPositions, model).align();
+        long endTs = System.nanoTime();
+        if (expectedFuel != null && (long) expectedFuel != alignment.getFuel()) {
+            throw new IllegalStateException("Aligner fuel " + alignment.getFuel() + " differs from the part answer " + expectedFuel);
+        }
+        System.out.println("Position - " + alignment.getPosition() + ", fuel - " + alignment.getFuel()
+                + (model.isConvex() ? ", bisected" : ", scanned"));
+        System.out.println("Took - " + (endTs - startTs) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public int day() {
+        return 7;
+    }
+
+    @Override
+    public int[] parse(List<String> lines) {
+        return parse(InputCursor.of(lines));
+    }
+
+    @Override
+    public int[] parse(InputCursor cursor) {
+        return cursor.remainingInts();
+    }
+
+    /**
+     * Linear fuel is minimal at a median, found by quickselect in O(n). Reorders the positions in place.
+     */
+    @Override
+    public Object part1(int[] crabsPositions) {
+        int medianPosition = Instrumentation.measure("select median", () -> select(crabsPositions, crabsPositions.length / 2));
+
+        long fuel = 0;
+        for (int crabPosition : crabsPositions) {
+            fuel += Math.abs(crabPosition - medianPosition);
+        }
+        return fuel;
+    }
 
-            Arrays.sort(crabsPositions);
+    /**
+     * Moving from {@code k} to {@code k + 1} changes the triangular fuel by {@code n * (k - mean) + (crabs at or
+     * before k)}, which is negative below {@code mean - 1} and not negative from the mean on, so the floor or
+     * the ceiling of the mean is optimal.
+     */
+    @Override
+    public Object part2(int[] crabsPositions) {
+        long totalPositions = 0;
+        for (int crabPosition : crabsPositions) {
+            totalPositions += crabPosition;
+        }
+        long floorMean = Math.floorDiv(totalPositions, crabsPositions.length);
+        long ceilMean = floorMean + (Math.floorMod(totalPositions, crabsPositions.length) == 0 ? 0 : 1);
 
-            int totalPositions = 0;
+        return Instrumentation.measure("sum fuel", () -> {
+            long floorFuel = 0;
+            long ceilFuel = 0;
             for (int crabPosition : crabsPositions) {
-                totalPositions += crabPosition;
+                floorFuel += calculateFuelCost(Math.abs(crabPosition - floorMean));
+                ceilFuel += calculateFuelCost(Math.abs(crabPosition - ceilMean));
             }
-            int averagePosition = (int) Math.round((double) totalPositions / crabsPositions.length);
+            return Math.min(floorFuel, ceilFuel);
+        });
+    }
 
-            int fuel = 0;
-            for (int crabPosition : crabsPositions) {
-                fuel += calculateFuelCost(Math.abs(crabPosition - averagePosition));
+    private static long calculateFuelCost(long distance) {
+        return distance * (distance + 1) / 2;
+    }
+
+    /**
+     * The {@code k}-th smallest position, partitioning around the median of three until only it is left.
+     */
+    private static int select(int[] positions, int k) {
+        int from = 0;
+        int to = positions.length - 1;
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            int pivot = medianOfThree(positions[from], positions[middle], positions[to]);
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (positions[i] < pivot) {
+                    i++;
+                }
+                while (positions[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = positions[i];
+                    positions[i++] = positions[j];
+                    positions[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                to = j;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                return positions[k];
             }
-            System.out.println("Position - " + averagePosition + ", fuel - " + fuel +
-                    ", avg double - " + (double) totalPositions / crabsPositions.length);
         }
+        return positions[k];
+    }
+
+    private static int medianOfThree(int a, int b, int c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
     }
 
-    private static int calculateFuelCost(int distance) {
-        int fuel = 0;
-        for (int i = 1; i <= distance; i++) {
-            fuel += i;
+    /**
+     * Crabs counted per position, with prefix sums of the counts and the positions. The fuel to align every crab
+     * at any position is then O(1): the linear fuel splits at the position into crabs before and after it, and
+     * the triangular fuel {@code (d^2 + |d|) / 2} adds {@code sum (x - p)^2 = n x^2 - 2 x sum p + sum p^2}, which
+     * only needs the totals.
+     */
+    static class CrabHistogram {
+        private final long[] crabsBefore;
+        private final long[] positionsBefore;
+        private final long crabs;
+        private final long positionsSum;
+        private final long squaredPositionsSum;
+
+        private CrabHistogram(long[] counts, int maxPosition) {
+            this.crabsBefore = new long[maxPosition + 2];
+            this.positionsBefore = new long[maxPosition + 2];
+            long squaredPositionsSum = 0;
+            for (int position = 0; position <= maxPosition; position++) {
+                crabsBefore[position + 1] = crabsBefore[position] + counts[position];
+                positionsBefore[position + 1] = positionsBefore[position] + counts[position] * position;
+                squaredPositionsSum += counts[position] * position * position;
+            }
+            this.crabs = crabsBefore[maxPosition + 1];
+            this.positionsSum = positionsBefore[maxPosition + 1];
+            this.squaredPositionsSum = squaredPositionsSum;
         }
-        return fuel;
+
+        static CrabHistogram of(int[] crabsPositions) {
+            return of(Arrays.stream(crabsPositions).iterator());
+        }
+
+        /**
+         * Counts the remaining numbers of {@code cursor} without keeping them, in memory proportional to the
+         * farthest position.
+         */
+        static CrabHistogram of(InputCursor cursor) {
+            return of(new PrimitiveIterator.OfInt() {
+                @Override
+                public boolean hasNext() {
+                    return cursor.hasNextInt();
+                }
+
+                @Override
+                public int nextInt() {
+                    return cursor.nextInt();
+                }
+            });
+        }
+
+        private static CrabHistogram of(PrimitiveIterator.OfInt crabsPositions) {
+            long[] counts = new long[64];
+            int maxPosition = -1;
+            while (crabsPositions.hasNext()) {
+                int position = crabsPositions.nextInt();
+                if (position < 0) {
+                    throw new IllegalArgumentException("Negative crab position " + position);
+                }
+                if (position >= counts.length) {
+                    counts = Arrays.copyOf(counts, Math.max(counts.length * 2, position + 1));
+                }
+                counts[position]++;
+                maxPosition = Math.max(maxPosition, position);
+            }
+            if (maxPosition < 0) {
+                throw new IllegalArgumentException("No crabs");
+            }
+            return new CrabHistogram(counts, maxPosition);
+        }
+
+        int maxPosition() {
+            return crabsBefore.length - 2;
+        }
+
+        long linearCost(long position) {
+            int split = (int) Math.max(0, Math.min(position + 1, crabsBefore.length - 1));
+            long crabsUpTo = crabsBefore[split];
+            long positionsUpTo = positionsBefore[split];
+            return position * crabsUpTo - positionsUpTo + (positionsSum - positionsUpTo) - position * (crabs - crabsUpTo);
+        }
+
+        long triangularCost(long position) {
+            long squaredDistances = crabs * position * position - 2 * position * positionsSum + squaredPositionsSum;
+            return (squaredDistances + linearCost(position)) / 2;
+        }
+
+        /**
+         * Linear fuel for every position from 0 to {@link #maxPosition()}.
+         */
+        long[] linearCostCurve() {
+            long[] curve = new long[maxPosition() + 1];
+            Arrays.setAll(curve, this::linearCost);
+            return curve;
+        }
+
+        long[] triangularCostCurve() {
+            long[] curve = new long[maxPosition() + 1];
+            Arrays.setAll(curve, this::triangularCost);
+            return curve;
+        }
+    }
+
+    /**
+     * Fuel a crab, identified by its index in the input, burns to move a distance.
+     */
+    interface FuelCostModel {
+        FuelCostModel LINEAR = (crab, distance) -> distance;
+        FuelCostModel TRIANGULAR = (crab, distance) -> distance * (distance + 1) / 2;
+
+        long cost(int crab, long distance);
+
+        /**
+         * Whether the total fuel is convex in the alignment position, which holds when every crab's cost is
+         * convex and non-decreasing in the distance.
+         */
+        default boolean isConvex() {
+            return true;
+        }
+
+        static FuelCostModel weighted(long[] weights, FuelCostModel model) {
+            boolean convex = model.isConvex() && Arrays.stream(weights).allMatch(weight -> weight >= 0);
+            return new FuelCostModel() {
+                @Override
+                public long cost(int crab, long distance) {
+                    return weights[crab] * model.cost(crab, distance);
+                }
+
+                @Override
+                public boolean isConvex() {
+                    return convex;
+                }
+            };
+        }
+
+        /**
+         * {@code distance ^ exponents[crab]}; exponents below 1 make the total non-convex.
+         */
+        static FuelCostModel powers(int[] exponents) {
+            boolean convex = Arrays.stream(exponents).allMatch(exponent -> exponent >= 1);
+            return new FuelCostModel() {
+                @Override
+                public long cost(int crab, long distance) {
+                    long cost = 1;
+                    for (int i = 0; i < exponents[crab]; i++) {
+                        cost = Math.multiplyExact(cost, distance);
+                    }
+                    return distance == 0 ? 0 : cost;
+                }
+
+                @Override
+                public boolean isConvex() {
+                    return convex;
+                }
+            };
+        }
+    }
+
+    @Value
+    static class Alignment {
+        long position;
+        long fuel;
     }
 
+    /**
+     * Cheapest alignment under any {@link FuelCostModel}. A convex total is bisected on the sign of
+     * {@code fuel(x + 1) - fuel(x)} between the outermost crabs, summing the fuel of large inputs over crab
+     * chunks on the common pool; any other total is scanned at every position, positions in parallel.
+     */
+    static class FuelAligner {
+        private static final int CHUNK_CRABS = 1 << 14;
+
+        private final int[] crabsPositions;
+        private final FuelCostModel model;
+
+        FuelAligner(int[] crabsPositions, FuelCostModel model) {
+            this.crabsPositions = crabsPositions;
+            this.model = model;
+        }
+
+        Alignment align() {
+            int minPosition = Arrays.stream(crabsPositions).min().orElseThrow();
+            int maxPosition = Arrays.stream(crabsPositions).max().orElseThrow();
+            if (!model.isConvex()) {
+                return IntStream.rangeClosed(minPosition, maxPosition)
+                        .parallel()
+                        .mapToObj(position -> new Alignment(position, fuel(position, 0, crabsPositions.length)))
+                        .min(Comparator.comparingLong(Alignment::getFuel).thenComparingLong(Alignment::getPosition))
+                        .orElseThrow();
+            }
+            long from = minPosition;
+            long to = maxPosition;
+            while (from < to) {
+                long middle = (from + to) >>> 1;
+                if (totalFuel(middle + 1) >= totalFuel(middle)) {
+                    to = middle;
+                } else {
+                    from = middle + 1;
+                }
+            }
+            return new Alignment(from, totalFuel(from));
+        }
+
+        long totalFuel(long position) {
+            if (crabsPositions.length <= CHUNK_CRABS) {
+                return fuel(position, 0, crabsPositions.length);
+            }
+            int chunks = (crabsPositions.length + CHUNK_CRABS - 1) / CHUNK_CRABS;
+            return IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToLong(chunk -> fuel(position, chunk * CHUNK_CRABS, Math.min(crabsPositions.length, (chunk + 1) * CHUNK_CRABS)))
+                    .sum();
+        }
+
+        private long fuel(long position, int fromCrab, int toCrab) {
+            long fuel = 0;
+            for (int crab = fromCrab; crab < toCrab; crab++) {
+                fuel += model.cost(crab, Math.abs(crabsPositions[crab] - position));
+            }
+            return fuel;
+        }
+    }
 }
@@ -1,124 +1,472 @@
-import com.google.common.collect.Sets;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class Day8_Fixing8DigitClock implements Solver<int[]> {
+    static final int PATTERNS = 10;
+    static final int OUTPUTS = 4;
+    static final int READING_MASKS = PATTERNS + OUTPUTS;
+    private static final long MIN_LOG_CHUNK_BYTES = 1 << 20;
+    private static final long MAX_LOG_CHUNK_BYTES = 64 << 20;
+
+    private final boolean wiringIndex;
+
+    public Day8_Fixing8DigitClock() {
+        this(false);
+    }
 
-public class Day8_Fixing8DigitClock {
+    /**
+     * With {@code wiringIndex} part 2 decodes through {@link WiringIndex} instead of {@link MaskDecoder}.
+     */
+    public Day8_Fixing8DigitClock(boolean wiringIndex) {
+        this.wiringIndex = wiringIndex;
+    }
+
+    /**
+     * {@code --wiring-index} decodes part 2 through the precomputed index, {@code --log} prints a {@link LogSummary}
+     * of the input instead of solving it; the optional other argument is the input file.
+     */
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/8.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
-
-            Long result = br.lines()
-                    .map(str -> str.split(" \\| "))
-                    .mapToLong(strs -> {
-                        List<Set<String>> encodedNumbers = Arrays.stream(strs[0].split(" "))
-                                .map(str -> Arrays.stream(str.split("")).collect(Collectors.toSet()))
-                                .collect(Collectors.toList());
-                        Display display = new Display(encodedNumbers);
-
-
-                        List<Integer> numbers = Arrays.stream(strs[1].split(" "))
-                                .map(str -> Arrays.stream(str.split("")).collect(Collectors.toSet()))
-                                .map(display::getNumber)
-                                .collect(Collectors.toList());
-                        long value = 0;
-                        long multiplier = 1;
-                        for (int i = numbers.size() - 1; i >= 0; i--) {
-                            value += numbers.get(i) * multiplier;
-                            multiplier *= 10;
+        List<String> options = Arrays.asList(args);
+        String[] inputArgs = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+        if (options.contains("--log")) {
+            long startTs = System.nanoTime();
+            LogSummary summary = summarizeLog(inputArgs.length > 0 ? Paths.get(inputArgs[0]) : InputFiles.forDay(8));
+            long endTs = System.nanoTime();
+            System.out.println("Readings - " + summary.readings + ", 1/4/7/8 outputs - " + summary.uniqueSegmentOutputs()
+                    + ", output sum - " + summary.outputSum + ", digits - " + Arrays.toString(summary.digitCounts));
+            System.out.println("Took - " + (endTs - startTs) / 1_000_000 + " ms");
+            return;
+        }
+        SolverRunner.run(new Day8_Fixing8DigitClock(options.contains("--wiring-index")), inputArgs);
+    }
+
+    @Override
+    public int day() {
+        return 8;
+    }
+
+    @Override
+    public int[] parse(List<String> lines) {
+        return parse(InputCursor.of(lines));
+    }
+
+    /**
+     * Every reading becomes {@value #READING_MASKS} consecutive 7-bit segment masks, bit {@code k} standing for
+     * wire {@code 'a' + k}: the ten patterns followed by the four output digits.
+     */
+    @Override
+    public int[] parse(InputCursor cursor) {
+        int[] masks = new int[READING_MASKS * 64];
+        int count = 0;
+        while (cursor.nextToken()) {
+            if (cursor.tokenEquals("|")) {
+                continue;
+            }
+            if (count == masks.length) {
+                masks = Arrays.copyOf(masks, count * 2);
+            }
+            masks[count++] = segmentMask(cursor);
+        }
+        if (count % READING_MASKS != 0) {
+            throw new IllegalArgumentException("Readings need " + READING_MASKS + " patterns each, got " + count + " in total");
+        }
+        return Arrays.copyOf(masks, count);
+    }
+
+    static int segmentMask(InputCursor cursor) {
+        int mask = 0;
+        for (int i = 0; i < cursor.tokenLength(); i++) {
+            byte wire = cursor.tokenByte(i);
+            if (wire < 'a' || wire > 'g') {
+                throw new IllegalArgumentException("Pattern " + cursor.token() + " has a wire outside a-g");
+            }
+            mask |= 1 << (wire - 'a');
+        }
+        return mask;
+    }
+
+    @Override
+    public Object part1(int[] readings) {
+        long count = 0;
+        for (int reading = 0; reading < readings.length; reading += READING_MASKS) {
+            for (int output = PATTERNS; output < READING_MASKS; output++) {
+                int segments = Integer.bitCount(readings[reading + output]);
+                if (segments == 2 || segments == 3 || segments == 4 || segments == 7) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Object part2(int[] readings) {
+        if (wiringIndex) {
+            WiringIndex index = Instrumentation.measure("build index", WiringIndex::instance);
+            return Instrumentation.measure("decode displays", () -> {
+                long sum = 0;
+                for (int reading = 0; reading < readings.length; reading += READING_MASKS) {
+                    sum += index.decode(readings, reading);
+                }
+                return sum;
+            });
+        }
+        return Instrumentation.measure("decode displays", () -> {
+            MaskDecoder decoder = new MaskDecoder();
+            long sum = 0;
+            for (int reading = 0; reading < readings.length; reading += READING_MASKS) {
+                decoder.learn(readings, reading);
+                sum += decoder.decode(readings, reading + PATTERNS);
+            }
+            return sum;
+        });
+    }
+
+    /**
+     * Wiring of one display deduced from its ten patterns as segment masks. 1, 4, 7 and 8 have unique segment
+     * counts; of the six segment digits 9 covers 4, 0 covers 1 and 6 does neither; of the five segment digits
+     * 3 covers 1, 5 shares three segments with 4 and 2 is left. The digit of every pattern lands in a table
+     * indexed by mask, whose entries are cleared again when the next display is learned, so decoding allocates
+     * nothing and an output mask that is none of the display's patterns is caught.
+     */
+    static class MaskDecoder {
+        private final byte[] digitByMask = new byte[128];
+        private final int[] learnedMasks = new int[PATTERNS];
+
+        MaskDecoder() {
+            Arrays.fill(digitByMask, (byte) -1);
+        }
+
+        void learn(int[] masks, int from) {
+            for (int learnedMask : learnedMasks) {
+                digitByMask[learnedMask] = -1;
+            }
+            int one = 0;
+            int four = 0;
+            for (int i = from; i < from + PATTERNS; i++) {
+                int segments = Integer.bitCount(masks[i]);
+                if (segments == 2) {
+                    one = masks[i];
+                } else if (segments == 4) {
+                    four = masks[i];
+                }
+            }
+            for (int i = from; i < from + PATTERNS; i++) {
+                digitByMask[masks[i]] = (byte) digit(masks[i], one, four);
+                learnedMasks[i - from] = masks[i];
+            }
+        }
+
+        private static int digit(int mask, int one, int four) {
+            switch (Integer.bitCount(mask)) {
+                case 2:
+                    return 1;
+                case 3:
+                    return 7;
+                case 4:
+                    return 4;
+                case 7:
+                    return 8;
+                case 6:
+                    return (mask & four) == four ? 9 : (mask & one) == one ? 0 : 6;
+                case 5:
+                    return (mask & one) == one ? 3 : Integer.bitCount(mask & four) == 3 ? 5 : 2;
+                default:
+                    throw new IllegalArgumentException("No digit has " + Integer.bitCount(mask) + " segments");
+            }
+        }
+
+        int digit(int mask) {
+            int digit = digitByMask[mask];
+            if (digit < 0) {
+                throw new IllegalArgumentException("Output " + Integer.toBinaryString(mask) + " is none of the display's patterns");
+            }
+            return digit;
+        }
+
+        /**
+         * The four output digits from {@code from} on read as one decimal number.
+         */
+        int decode(int[] masks, int from) {
+            int value = 0;
+            for (int i = from; i < from + OUTPUTS; i++) {
+                value = value * 10 + digit(masks[i]);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Every one of the 5040 wirings, keyed by the signature of the ten patterns it scrambles the digits into:
+     * the nine masks other than 8's, which always lights all seven segments, in ascending order, 7 bits each in
+     * one {@code long}. The value is the inverse wiring, the true segment of every wire packed in 3 bits each, so
+     * a reading decodes with one lookup and by translating its four output masks back to the true digit masks.
+     */
+    static class WiringIndex {
+        private static final int SEGMENTS = 7;
+        private static final int EIGHT = (1 << SEGMENTS) - 1;
+        private static final int[] DIGIT_MASKS = {
+                0b1110111, 0b0100100, 0b1011101, 0b1101101, 0b0101110, 0b1101011, 0b1111011, 0b0100101, EIGHT, 0b1101111};
+        private static final byte[] DIGIT_BY_MASK = new byte[1 << SEGMENTS];
+        private static volatile WiringIndex instance;
+
+        static {
+            Arrays.fill(DIGIT_BY_MASK, (byte) -1);
+            for (int digit = 0; digit < DIGIT_MASKS.length; digit++) {
+                DIGIT_BY_MASK[DIGIT_MASKS[digit]] = (byte) digit;
+            }
+        }
+
+        private final LongLongMap inverseWirings = new LongLongMap();
+
+        private WiringIndex() {
+            permute(new int[SEGMENTS], 0, 0);
+        }
+
+        static WiringIndex instance() {
+            if (instance == null) {
+                synchronized (WiringIndex.class) {
+                    if (instance == null) {
+                        instance = new WiringIndex();
+                    }
+                }
+            }
+            return instance;
+        }
+
+        /**
+         * Fills {@code wiring[segment]}, the wire lighting each true segment, with every unused wire in turn.
+         */
+        private void permute(int[] wiring, int segment, int usedWires) {
+            if (segment == SEGMENTS) {
+                add(wiring);
+                return;
+            }
+            for (int wire = 0; wire < SEGMENTS; wire++) {
+                if ((usedWires & 1 << wire) == 0) {
+                    wiring[segment] = wire;
+                    permute(wiring, segment + 1, usedWires | 1 << wire);
+                }
+            }
+        }
+
+        private void add(int[] wiring) {
+            long presentMasks0 = 0;
+            long presentMasks1 = 0;
+            for (int digitMask : DIGIT_MASKS) {
+                int scrambled = translate(digitMask, wiring);
+                if (scrambled < 64) {
+                    presentMasks0 |= 1L << scrambled;
+                } else {
+                    presentMasks1 |= 1L << scrambled;
+                }
+            }
+            long inverseWiring = 0;
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                inverseWiring |= (long) segment << 3 * wiring[segment];
+            }
+            long signature = signature(presentMasks0, presentMasks1);
+            if (inverseWirings.containsKey(signature)) {
+                throw new IllegalStateException("Two wirings share the signature " + Long.toHexString(signature));
+            }
+            inverseWirings.put(signature, inverseWiring);
+        }
+
+        /**
+         * The four output digits of the reading at {@code from} read as one decimal number.
+         */
+        int decode(int[] masks, int from) {
+            long presentMasks0 = 0;
+            long presentMasks1 = 0;
+            for (int i = from; i < from + PATTERNS; i++) {
+                if (masks[i] < 64) {
+                    presentMasks0 |= 1L << masks[i];
+                } else {
+                    presentMasks1 |= 1L << masks[i];
+                }
+            }
+            long inverseWiring = inverseWirings.get(signature(presentMasks0, presentMasks1), -1);
+            if (inverseWiring < 0) {
+                throw new IllegalArgumentException("No wiring scrambles the digits into the patterns at " + from);
+            }
+            int value = 0;
+            for (int i = from + PATTERNS; i < from + READING_MASKS; i++) {
+                int digit = DIGIT_BY_MASK[translate(masks[i], inverseWiring)];
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Output " + Integer.toBinaryString(masks[i]) + " at " + i + " is no digit under the reading's wiring");
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        /**
+         * The set masks in ascending order, 8's excluded, 7 bits each.
+         */
+        private static long signature(long presentMasks0, long presentMasks1) {
+            presentMasks1 &= ~(1L << (EIGHT - 64));
+            long signature = 0;
+            for (long masks = presentMasks0; masks != 0; masks &= masks - 1) {
+                signature = signature << SEGMENTS | Long.numberOfTrailingZeros(masks);
+            }
+            for (long masks = presentMasks1; masks != 0; masks &= masks - 1) {
+                signature = signature << SEGMENTS | 64 + Long.numberOfTrailingZeros(masks);
+            }
+            return signature;
+        }
+
+        private static int translate(int mask, int[] wiring) {
+            int translated = 0;
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                if ((mask & 1 << segment) != 0) {
+                    translated |= 1 << wiring[segment];
+                }
+            }
+            return translated;
+        }
+
+        private static int translate(int mask, long inverseWiring) {
+            int translated = 0;
+            for (int wire = 0; wire < SEGMENTS; wire++) {
+                if ((mask & 1 << wire) != 0) {
+                    translated |= 1 << (inverseWiring >>> 3 * wire & 7);
+                }
+            }
+            return translated;
+        }
+    }
+
+    /**
+     * Summary of a display log of any size: the file is cut into up to four chunks per common pool thread, of at
+     * least {@value #MIN_LOG_CHUNK_BYTES} and at most {@value #MAX_LOG_CHUNK_BYTES} bytes, that end at line ends;
+     * every chunk is mapped and decoded on its own on the common pool with a byte tokenizer
+     * and a {@link MaskDecoder}, and the chunk summaries are added up.
+     */
+    static LogSummary summarizeLog(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(Math.max(1, Math.min(size / MIN_LOG_CHUNK_BYTES, ForkJoinPool.getCommonPoolParallelism() * 4L)),
+                    (size + MAX_LOG_CHUNK_BYTES - 1) / MAX_LOG_CHUNK_BYTES);
+            long[] boundaries = new long[chunks + 1];
+            for (int chunk = 1; chunk < chunks; chunk++) {
+                boundaries[chunk] = lineStart(channel, Math.max(boundaries[chunk - 1], size * chunk / chunks));
+            }
+            boundaries[chunks] = size;
+            return IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        try {
+                            return summarizeChunk(channel.map(FileChannel.MapMode.READ_ONLY, boundaries[chunk], boundaries[chunk + 1] - boundaries[chunk]));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
                         }
-                        return value;
                     })
-                    .sum();
+                    .reduce(new LogSummary(), LogSummary::add);
+        }
+    }
 
-            System.out.println(result);
+    /**
+     * First position at or after {@code position} that starts a line.
+     */
+    private static long lineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long lineStart = position;
+        if (lineStart == 0) {
+            return 0;
+        }
+        lineStart--;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, lineStart);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return lineStart + i + 1;
+                }
+            }
+            lineStart += read;
         }
     }
 
-    private static class Display {
-        Map<Set<String>, Integer> numberRules = new HashMap<>();
-
-        public Display(Collection<Set<String>> encodedNumbers) {
-            Set<Set<String>> unsolvedEncodedNumbers = new HashSet<>(encodedNumbers);
-
-            Set<String> one = unsolvedEncodedNumbers.stream().filter(set -> set.size() == 2).findAny().get();
-            unsolvedEncodedNumbers.remove(one);
-            numberRules.put(one, 1);
-
-            Set<String> four = unsolvedEncodedNumbers.stream().filter(set -> set.size() == 4).findAny().get();
-            unsolvedEncodedNumbers.remove(four);
-            numberRules.put(four, 4);
-
-            Set<String> seven = unsolvedEncodedNumbers.stream().filter(set -> set.size() == 3).findAny().get();
-            unsolvedEncodedNumbers.remove(seven);
-            numberRules.put(seven, 7);
-
-            Set<String> eight = unsolvedEncodedNumbers.stream().filter(set -> set.size() == 7).findAny().get();
-            unsolvedEncodedNumbers.remove(eight);
-            numberRules.put(eight, 8);
-
-            Set<String> six = unsolvedEncodedNumbers.stream()
-                    .filter(set -> set.size() == 6)
-                    .filter(set ->
-                            !Sets.intersection(one, Sets.difference(eight, set)).isEmpty()
-                    )
-                    .findAny().get();
-            unsolvedEncodedNumbers.remove(six);
-            numberRules.put(six, 6);
-
-            Set<String> zero = unsolvedEncodedNumbers.stream()
-                    .filter(set -> set.size() == 6)
-                    .filter(set ->
-                            !Sets.intersection(four, Sets.difference(eight, set)).isEmpty()
-                    )
-                    .findAny().get();
-            unsolvedEncodedNumbers.remove(zero);
-            numberRules.put(zero, 0);
-
-            Set<String> nine = unsolvedEncodedNumbers.stream()
-                    .filter(set -> set.size() == 6)
-                    .findAny().get();
-            unsolvedEncodedNumbers.remove(nine);
-            numberRules.put(nine, 9);
-
-            String topRight = Sets.difference(eight, six).stream().findAny().get();
-            Set<String> five = unsolvedEncodedNumbers.stream()
-                    .filter(set -> set.size() == 5)
-                    .filter(set -> Sets.difference(nine, set).equals(Set.of(topRight)))
-                    .findAny().get();
-            unsolvedEncodedNumbers.remove(five);
-            numberRules.put(five, 5);
-
-            String bottomRight = Sets.difference(one, Set.of(topRight)).stream().findAny().get();
-            Set<String> three = unsolvedEncodedNumbers.stream()
-                    .filter(set -> set.size() == 5)
-                    .filter(set -> Sets.intersection(Set.of(bottomRight, topRight), set).size() == 2)
-                    .findAny().get();
-            unsolvedEncodedNumbers.remove(three);
-            numberRules.put(three, 3);
-
-            Set<String> two = unsolvedEncodedNumbers.stream()
-                    .findAny().get();
-            unsolvedEncodedNumbers.remove(two);
-            numberRules.put(two, 2);
-        }
-
-        public Integer getNumber(Set<String> encoded) {
-            return numberRules.get(encoded);
+    private static LogSummary summarizeChunk(ByteBuffer chunk) {
+        LogSummary summary = new LogSummary();
+        MaskDecoder decoder = new MaskDecoder();
+        int[] masks = new int[READING_MASKS];
+        int count = 0;
+        int mask = 0;
+        for (int position = chunk.position(), limit = chunk.limit(); position <= limit; position++) {
+            byte b = position < limit ? chunk.get(position) : (byte) '\n';
+            if (b >= 'a' && b <= 'g') {
+                mask |= 1 << (b - 'a');
+                continue;
+            }
+            if (b != ' ' && b != '|' && b != '\r' && b != '\n') {
+                throw new IllegalArgumentException("Unexpected byte " + (b & 0xFF) + " in a display log");
+            }
+            if (mask != 0) {
+                if (count == READING_MASKS) {
+                    throw new IllegalArgumentException("More than " + READING_MASKS + " patterns in a reading");
+                }
+                masks[count++] = mask;
+                mask = 0;
+            }
+            if (b == '\n') {
+                if (count == READING_MASKS) {
+                    decoder.learn(masks, 0);
+                    summary.addReading(decoder, masks);
+                } else if (count != 0) {
+                    throw new IllegalArgumentException("Reading with " + count + " patterns instead of " + READING_MASKS);
+                }
+                count = 0;
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Totals over a display log: readings, output digits with a unique segment count (part 1), the sum of the
+     * decoded outputs (part 2) and how often each output digit shows up.
+     */
+    static class LogSummary {
+        long readings;
+        long outputSum;
+        final long[] digitCounts = new long[10];
+
+        private void addReading(MaskDecoder decoder, int[] masks) {
+            readings++;
+            int value = 0;
+            for (int output = PATTERNS; output < READING_MASKS; output++) {
+                int digit = decoder.digit(masks[output]);
+                digitCounts[digit]++;
+                value = value * 10 + digit;
+            }
+            outputSum += value;
         }
 
+        long uniqueSegmentOutputs() {
+            return digitCounts[1] + digitCounts[4] + digitCounts[7] + digitCounts[8];
+        }
+
+        LogSummary add(LogSummary other) {
+            LogSummary sum = new LogSummary();
+            sum.readings = readings + other.readings;
+            sum.outputSum = outputSum + other.outputSum;
+            Arrays.setAll(sum.digitCounts, digit -> digitCounts[digit] + other.digitCounts[digit]);
+            return sum;
+        }
     }
+
     /*
         th = 7 - 1;
         bh = 9 - (7 + 4);
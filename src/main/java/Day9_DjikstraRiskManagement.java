@@ -1,206 +1,576 @@
 import lombok.Value;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.Reader;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
-import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-public class Day9_DjikstraRiskManagement {
+public class Day9_DjikstraRiskManagement implements Solver<ByteGrid> {
+    /**
+     * {@code --stream} scans the input with a {@link StreamingBasinScanner} instead of loading it, {@code --tiled}
+     * loads it and runs {@link TiledBasinLabeler}; the optional other argument is the input file.
+     */
     public static void main(String[] args) throws Exception {
-        File taskFile = new File("/Users/vzikratyi/Test/9.txt");
-        try (Reader r = new FileReader(taskFile);
-             BufferedReader br = new BufferedReader(r)) {
+        List<String> options = Arrays.asList(args);
+        String[] inputArgs = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+        if (!options.contains("--stream") && !options.contains("--tiled")) {
+            SolverRunner.run(new Day9_DjikstraRiskManagement(), inputArgs);
+            return;
+        }
+        Path input = inputArgs.length > 0 ? Paths.get(inputArgs[0]) : InputFiles.forDay(9);
+        long startTs = System.nanoTime();
+        TerrainSummary summary = options.contains("--stream")
+                ? StreamingBasinScanner.scan(input, 3)
+                : TiledBasinLabeler.label(ByteGrid.parseDigits(InputFiles.open(input), false), 3);
+        long endTs = System.nanoTime();
+        System.out.println("Part 1: " + summary.getTotalRisk());
+        System.out.println("Part 2: " + summary.getLargestBasinsProduct());
+        System.out.println("Took - " + (endTs - startTs) / 1_000_000 + " ms");
+    }
 
-            List<int[]> boardLines = br.lines()
-                    .map(str -> str.split(""))
-                    .map(numberStrs -> Arrays.stream(numberStrs).mapToInt(Integer::parseInt).toArray())
-                    .collect(Collectors.toList());
+    @Override
+    public int day() {
+        return 9;
+    }
 
-            int[][] board = null;
-            for (int i = 0; i < boardLines.size(); i++) {
-                int[] boardLine = boardLines.get(i);
-                if (board == null) {
-                    board = new int[boardLines.size()][boardLine.length];
-                }
-                board[i] = boardLine;
-            }
+    @Override
+    public ByteGrid parse(List<String> lines) {
+        return parse(InputCursor.of(lines));
+    }
 
-            BasinManager basinManager = new BasinManager(board);
+    @Override
+    public ByteGrid parse(InputCursor cursor) {
+        return ByteGrid.parseDigits(cursor, false);
+    }
 
-            System.out.println(basinManager.getTopLargestBasins(3));
-        }
+    @Override
+    public Object part1(ByteGrid board) {
+        return Instrumentation.measure("find low points", () -> new BoardRiskCalculator(board).getTotalRisk());
+    }
+
+    @Override
+    public Object part2(ByteGrid board) {
+        BasinManager basinManager = Instrumentation.measure("label basins", () -> new BasinManager(board));
+        return Instrumentation.measure("top basins", () -> basinManager.getTopLargestBasins(3));
     }
 
     private static class BoardRiskCalculator {
-        List<Point> lowestPoints = new ArrayList<>();
-        private final int[][] board;
+        private final ByteGrid board;
 
-        public BoardRiskCalculator(int[][] board) {
+        public BoardRiskCalculator(ByteGrid board) {
             this.board = board;
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[0].length; j++) {
-                    if (isLowPoint(i, j, board)) {
-                        lowestPoints.add(new Point(i, j));
-                    }
-                }
-            }
         }
 
-        private boolean isLowPoint(int i, int j, int[][] board) {
-            int pointHeight = board[i][j];
-            return pointHeight < getPointHeight(i - 1, j, board)
-                    && pointHeight < getPointHeight(i + 1, j, board)
-                    && pointHeight < getPointHeight(i, j - 1, board)
-                    && pointHeight < getPointHeight(i, j + 1, board);
-        }
-
-        private int getPointHeight(int i, int j, int[][] board) {
-            return isPointValid(i, j, board) ? board[i][j] : Integer.MAX_VALUE;
+        private long getRowsRisk(int fromRow, int toRow) {
+            int[] neighbours = new int[4];
+            long risk = 0;
+            for (int index = board.index(fromRow, 0); index < board.index(toRow, 0); index++) {
+                if (isLowPoint(index, neighbours)) {
+                    risk += board.get(index) + 1;
+                }
+            }
+            return risk;
         }
 
-        private boolean isPointValid(int i, int j, int[][] board) {
-            return i >= 0 && i < board.length && j >= 0 && j < board[0].length;
+        private boolean isLowPoint(int index, int[] neighbours) {
+            int pointHeight = board.get(index);
+            int neighbourCount = board.neighbours4(index, neighbours);
+            for (int k = 0; k < neighbourCount; k++) {
+                if (board.get(neighbours[k]) <= pointHeight) {
+                    return false;
+                }
+            }
+            return true;
         }
 
-        public Integer getTotalRisk() {
-            return lowestPoints.stream().mapToInt(point -> board[point.i][point.j]).sum();
+        public long getTotalRisk() {
+            return board.sumRowStrips(this::getRowsRisk);
         }
     }
 
+    /**
+     * Basins as union-find sets over the cell indexes: scanning row by row, every cell that is not a 9 joins the
+     * basins of its upper and left neighbours.
+     */
     private static class BasinManager {
-        private final Set<Basin> basins = new HashSet<>();
-        private final Basin[][] pointsToBasin;
-        private final int[][] board;
+        private final ByteGrid board;
+        private final UnionFind basins;
 
-        public BasinManager(int[][] board) {
+        public BasinManager(ByteGrid board) {
             this.board = board;
-            pointsToBasin = new Basin[board.length][board[0].length];
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[0].length; j++) {
-                    if (board[i][j] == 9) {
+            this.basins = new UnionFind(board.size());
+            for (int i = 0; i < board.height(); i++) {
+                for (int j = 0; j < board.width(); j++) {
+                    int index = board.index(i, j);
+                    if (board.get(index) == 9) {
                         continue;
                     }
-                    Basin surroundingBasin = getSurroundingBasin(i, j);
-                    if (surroundingBasin == null) {
-                        createBasin(i, j);
-                    } else {
-                        addPointToBasin(i, j, surroundingBasin);
-                        mergeSurroundingBasins(i, j, surroundingBasin);
+                    if (i > 0 && board.get(index - board.width()) != 9) {
+                        basins.union(index, index - board.width());
+                    }
+                    if (j > 0 && board.get(index - 1) != 9) {
+                        basins.union(index, index - 1);
                     }
                 }
             }
         }
 
-        private void addPointToBasin(int i, int j, Basin basin) {
-            basin.getPoints().add(new Point(i, j));
-            pointsToBasin[i][j] = basin;
+        public long getTopLargestBasins(int amount) {
+            TopSizes topSizes = new TopSizes(amount);
+            for (int index = 0; index < board.size(); index++) {
+                if (board.get(index) != 9 && basins.isRoot(index)) {
+                    topSizes.offer(basins.setSize(index));
+                }
+            }
+            return topSizes.product();
+        }
+    }
+
+    /**
+     * The {@code k} largest sizes offered, in a min-heap of {@code k} slots.
+     */
+    static class TopSizes {
+        private final long[] heap;
+        private int count;
+
+        TopSizes(int k) {
+            this.heap = new long[k];
+        }
+
+        void offer(long size) {
+            if (count < heap.length) {
+                heap[count] = size;
+                siftUp(count++);
+            } else if (heap.length > 0 && size > heap[0]) {
+                heap[0] = size;
+                siftDown(0);
+            }
+        }
+
+        void addAll(TopSizes other) {
+            for (int i = 0; i < other.count; i++) {
+                offer(other.heap[i]);
+            }
         }
 
-        private Basin getSurroundingBasin(int i, int j) {
-            Basin topBasin = extractBasin(i - 1, j);
-            if (topBasin != null) {
-                return topBasin;
+        long product() {
+            long product = 1;
+            for (int i = 0; i < count; i++) {
+                product = Math.multiplyExact(product, heap[i]);
             }
-            Basin bottomBasin = extractBasin(i + 1, j);
-            if (bottomBasin != null) {
-                return bottomBasin;
+            return product;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0 && heap[(i - 1) / 2] > heap[i]) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
             }
-            Basin leftBasin = extractBasin(i, j - 1);
-            if (leftBasin != null) {
-                return leftBasin;
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < count; child++) {
+                    if (heap[child] < heap[smallest]) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
             }
-            return extractBasin(i, j + 1);
         }
 
-        private void createBasin(int i, int j) {
-            HashSet<Point> points = new HashSet<>();
-            points.add(new Point(i, j));
-            Basin basin = new Basin(points);
-            basins.add(basin);
-            pointsToBasin[i][j] = basin;
+        private void swap(int i, int j) {
+            long swap = heap[i];
+            heap[i] = heap[j];
+            heap[j] = swap;
         }
+    }
+
+    @Value
+    static class TerrainSummary {
+        long totalRisk;
+        long largestBasinsProduct;
+    }
 
-        private void mergeSurroundingBasins(int i, int j, Basin surroundingBasin) {
-            Basin topBasin = extractBasin(i - 1, j);
-            if (topBasin != null && !surroundingBasin.equals(topBasin)) {
-                mergeBasins(surroundingBasin, topBasin);
+    /**
+     * Low points and basins of a heightmap fed one row at a time, keeping only the previous and the current row.
+     * A cell stays a low point candidate until the row below it has been compared. Basins are tracked as runs of
+     * non-9 cells: every row, the basins still open from the previous row and the runs of the new row go into a
+     * small union-find, runs join the basins of the runs they overlap, and a basin no new run joined is complete,
+     * so its size goes to the top sizes. Memory is O(width) however many rows there are.
+     */
+    static class StreamingBasinScanner {
+        private final TopSizes topSizes;
+        private final UnionFind merges = new UnionFind(0);
+        private int width = -1;
+        private boolean hasPreviousRow;
+        private byte[] previousRow;
+        private byte[] currentRow;
+        private boolean[] previousLow;
+        private boolean[] currentLow;
+        private long totalRisk;
+        private int[] previousRunStarts;
+        private int[] previousRunEnds;
+        private int[] previousRunBasins;
+        private int previousRuns;
+        private int[] currentRunStarts;
+        private int[] currentRunEnds;
+        private int[] currentRunBasins;
+        private int currentRuns;
+        private long[] openBasinSizes;
+        private long[] nextBasinSizes;
+        private int openBasins;
+        private long[] rootSizes;
+        private int[] rootBasins;
+        private boolean[] rootOpen;
+
+        StreamingBasinScanner(int topBasins) {
+            this.topSizes = new TopSizes(topBasins);
+        }
+
+        static TerrainSummary scan(Path path, int topBasins) throws IOException {
+            StreamingBasinScanner scanner = new StreamingBasinScanner(topBasins);
+            try (InputStream in = Files.newInputStream(path)) {
+                byte[] buffer = new byte[1 << 16];
+                byte[] row = new byte[256];
+                int length = 0;
+                for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                    for (int i = 0; i < read; i++) {
+                        byte b = buffer[i];
+                        if (b >= '0' && b <= '9') {
+                            if (length == row.length) {
+                                row = Arrays.copyOf(row, length * 2);
+                            }
+                            row[length++] = (byte) (b - '0');
+                        } else if (b == '\n') {
+                            if (length > 0) {
+                                scanner.addRow(row, length);
+                            }
+                            length = 0;
+                        } else if (b != '\r') {
+                            throw new IllegalArgumentException("Unexpected character " + (char) b + " in a heightmap");
+                        }
+                    }
+                }
+                if (length > 0) {
+                    scanner.addRow(row, length);
+                }
             }
-            Basin bottomBasin = extractBasin(i + 1, j);
-            if (bottomBasin != null && !surroundingBasin.equals(topBasin)) {
-                mergeBasins(surroundingBasin, bottomBasin);
+            return scanner.finish();
+        }
+
+        /**
+         * Adds the next row of heights, {@code length} of them starting at index 0 of {@code heights}.
+         */
+        void addRow(byte[] heights, int length) {
+            if (width < 0) {
+                allocate(length);
+            } else if (length != width) {
+                throw new IllegalArgumentException("Row is " + length + " cells wide instead of " + width);
             }
-            Basin leftBasin = extractBasin(i, j - 1);
-            if (leftBasin != null && !surroundingBasin.equals(leftBasin)) {
-                mergeBasins(surroundingBasin, leftBasin);
+            System.arraycopy(heights, 0, currentRow, 0, width);
+            findLowPoints();
+            findRuns();
+            mergeBasins();
+
+            byte[] row = previousRow;
+            previousRow = currentRow;
+            currentRow = row;
+            boolean[] low = previousLow;
+            previousLow = currentLow;
+            currentLow = low;
+            int[] runs = previousRunStarts;
+            previousRunStarts = currentRunStarts;
+            currentRunStarts = runs;
+            runs = previousRunEnds;
+            previousRunEnds = currentRunEnds;
+            currentRunEnds = runs;
+            runs = previousRunBasins;
+            previousRunBasins = currentRunBasins;
+            currentRunBasins = runs;
+            previousRuns = currentRuns;
+            long[] sizes = openBasinSizes;
+            openBasinSizes = nextBasinSizes;
+            nextBasinSizes = sizes;
+            hasPreviousRow = true;
+        }
+
+        TerrainSummary finish() {
+            if (hasPreviousRow) {
+                addRisk(previousRow, previousLow);
             }
-            Basin rightBasin = extractBasin(i, j + 1);
-            if (rightBasin != null && !surroundingBasin.equals(rightBasin)) {
-                mergeBasins(surroundingBasin, rightBasin);
+            for (int basin = 0; basin < openBasins; basin++) {
+                topSizes.offer(openBasinSizes[basin]);
             }
+            openBasins = 0;
+            hasPreviousRow = false;
+            return new TerrainSummary(totalRisk, topSizes.product());
         }
 
-        private void mergeBasins(Basin firstBasin, Basin secondBasin) {
-            Basin biggestBasin = firstBasin.getPoints().size() > secondBasin.getPoints().size() ? firstBasin : secondBasin;
-            Basin lowestBasin = biggestBasin.equals(firstBasin) ? secondBasin : firstBasin;
-            basins.remove(lowestBasin);
-            for (Point point : lowestBasin.getPoints()) {
-                biggestBasin.getPoints().add(point);
-                pointsToBasin[point.i][point.j] = biggestBasin;
+        private void allocate(int width) {
+            this.width = width;
+            previousRow = new byte[width];
+            currentRow = new byte[width];
+            previousLow = new boolean[width];
+            currentLow = new boolean[width];
+            int maxRuns = (width + 1) / 2;
+            previousRunStarts = new int[maxRuns];
+            previousRunEnds = new int[maxRuns];
+            previousRunBasins = new int[maxRuns];
+            currentRunStarts = new int[maxRuns];
+            currentRunEnds = new int[maxRuns];
+            currentRunBasins = new int[maxRuns];
+            openBasinSizes = new long[maxRuns];
+            nextBasinSizes = new long[maxRuns];
+            rootSizes = new long[2 * maxRuns];
+            rootBasins = new int[2 * maxRuns];
+            rootOpen = new boolean[2 * maxRuns];
+        }
+
+        /**
+         * Compares the new row with itself and with the previous row, whose low points are final after that.
+         */
+        private void findLowPoints() {
+            for (int j = 0; j < width; j++) {
+                int height = currentRow[j];
+                currentLow[j] = (j == 0 || currentRow[j - 1] > height) && (j == width - 1 || currentRow[j + 1] > height);
+                if (hasPreviousRow) {
+                    int aboveHeight = previousRow[j];
+                    if (aboveHeight <= height) {
+                        currentLow[j] = false;
+                    }
+                    if (height <= aboveHeight) {
+                        previousLow[j] = false;
+                    }
+                }
+            }
+            if (hasPreviousRow) {
+                addRisk(previousRow, previousLow);
             }
         }
 
-        public int getTopLargestBasins(int amount) {
-            return basins.stream()
-                    .map(Basin::getPoints)
-                    .map(Collection::size)
-                    .sorted(Collections.reverseOrder())
-                    .limit(amount)
-                    .reduce(1, (a, b) -> a * b)
-                    ;
+        private void addRisk(byte[] row, boolean[] low) {
+            for (int j = 0; j < width; j++) {
+                if (low[j]) {
+                    totalRisk += row[j] + 1;
+                }
+            }
         }
 
-        private Basin extractBasin(int i, int j) {
-            return isValid(i, j) ? pointsToBasin[i][j] : null;
+        private void findRuns() {
+            currentRuns = 0;
+            for (int j = 0; j < width; j++) {
+                if (currentRow[j] == 9) {
+                    continue;
+                }
+                currentRunStarts[currentRuns] = j;
+                while (j < width && currentRow[j] != 9) {
+                    j++;
+                }
+                currentRunEnds[currentRuns++] = j;
+            }
         }
 
-        private boolean isValid(int i, int j) {
-            return i >= 0 && i < board.length && j >= 0 && j < board[0].length;
+        /**
+         * Elements {@code 0 .. openBasins - 1} of the union-find are the open basins, the runs of the new row
+         * follow. Basins left without a run are complete; the others are renumbered for the next row.
+         */
+        private void mergeBasins() {
+            merges.clear();
+            for (int basin = 0; basin < openBasins; basin++) {
+                merges.add();
+            }
+            int previousRun = 0;
+            for (int run = 0; run < currentRuns; run++) {
+                int runElement = merges.add();
+                while (previousRun < previousRuns && previousRunEnds[previousRun] <= currentRunStarts[run]) {
+                    previousRun++;
+                }
+                for (int overlapping = previousRun; overlapping < previousRuns && previousRunStarts[overlapping] < currentRunEnds[run]; overlapping++) {
+                    merges.union(runElement, previousRunBasins[overlapping]);
+                }
+            }
+
+            int elements = merges.size();
+            Arrays.fill(rootSizes, 0, elements, 0);
+            Arrays.fill(rootOpen, 0, elements, false);
+            Arrays.fill(rootBasins, 0, elements, -1);
+            for (int basin = 0; basin < openBasins; basin++) {
+                rootSizes[merges.find(basin)] += openBasinSizes[basin];
+            }
+            for (int run = 0; run < currentRuns; run++) {
+                int root = merges.find(openBasins + run);
+                rootSizes[root] += currentRunEnds[run] - currentRunStarts[run];
+                rootOpen[root] = true;
+            }
+            for (int basin = 0; basin < openBasins; basin++) {
+                int root = merges.find(basin);
+                if (!rootOpen[root] && rootBasins[root] < 0) {
+                    topSizes.offer(rootSizes[root]);
+                    rootBasins[root] = Integer.MAX_VALUE;
+                }
+            }
+            int nextBasins = 0;
+            for (int run = 0; run < currentRuns; run++) {
+                int root = merges.find(openBasins + run);
+                if (rootBasins[root] < 0) {
+                    rootBasins[root] = nextBasins;
+                    nextBasinSizes[nextBasins++] = rootSizes[root];
+                }
+                currentRunBasins[run] = rootBasins[root];
+            }
+            openBasins = nextBasins;
         }
     }
 
-    @Value
-    private static class Basin {
-        UUID id = UUID.randomUUID();
+    /**
+     * Total risk and largest basins in one parallel pass: the board is cut into horizontal tiles, and each tile
+     * finds its low points and labels its basins with its own union-find on the common pool. Basins inside a
+     * tile are complete right away; the ones reaching a seam row get a seam id, and a small union-find over the
+     * seam ids joins them across the seams afterwards.
+     */
+    static class TiledBasinLabeler {
+        private final ByteGrid board;
+        private final int topBasins;
 
-        Set<Point> points;
+        private TiledBasinLabeler(ByteGrid board, int topBasins) {
+            this.board = board;
+            this.topBasins = topBasins;
+        }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            Basin basin = (Basin) o;
-            return Objects.equals(id, basin.id);
+        static TerrainSummary label(ByteGrid board, int topBasins) {
+            return new TiledBasinLabeler(board, topBasins).label();
         }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(id);
+        private TerrainSummary label() {
+            int tileHeight = Math.max(1, (board.height() + ForkJoinPool.getCommonPoolParallelism() * 4 - 1) / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            int tiles = Math.max(1, (board.height() + tileHeight - 1) / tileHeight);
+            List<Tile> labeledTiles = IntStream.range(0, tiles)
+                    .parallel()
+                    .mapToObj(tile -> new Tile(tile * tileHeight, Math.min(board.height(), (tile + 1) * tileHeight)))
+                    .collect(Collectors.toList());
+
+            int seamBasins = 0;
+            int[] offsets = new int[labeledTiles.size()];
+            for (int tile = 0; tile < labeledTiles.size(); tile++) {
+                offsets[tile] = seamBasins;
+                seamBasins += labeledTiles.get(tile).seamBasins;
+            }
+            UnionFind seams = new UnionFind(seamBasins);
+            for (int tile = 0; tile + 1 < labeledTiles.size(); tile++) {
+                int[] upper = labeledTiles.get(tile).lastRowSeamIds;
+                int[] lower = labeledTiles.get(tile + 1).firstRowSeamIds;
+                if (upper == null || lower == null) {
+                    continue;
+                }
+                for (int j = 0; j < board.width(); j++) {
+                    if (upper[j] >= 0 && lower[j] >= 0) {
+                        seams.union(offsets[tile] + upper[j], offsets[tile + 1] + lower[j]);
+                    }
+                }
+            }
+
+            long totalRisk = 0;
+            TopSizes topSizes = new TopSizes(topBasins);
+            long[] seamSizes = new long[seamBasins];
+            for (int tile = 0; tile < labeledTiles.size(); tile++) {
+                Tile labeledTile = labeledTiles.get(tile);
+                totalRisk += labeledTile.risk;
+                topSizes.addAll(labeledTile.interiorSizes);
+                for (int seamId = 0; seamId < labeledTile.seamBasins; seamId++) {
+                    seamSizes[seams.find(offsets[tile] + seamId)] += labeledTile.seamBasinSizes[seamId];
+                }
+            }
+            for (int seamId = 0; seamId < seamBasins; seamId++) {
+                if (seams.isRoot(seamId)) {
+                    topSizes.offer(seamSizes[seamId]);
+                }
+            }
+            return new TerrainSummary(totalRisk, topSizes.product());
         }
-    }
 
-    @Value
-    private static class Point {
-        int i;
-        int j;
+        private class Tile {
+            private final TopSizes interiorSizes = new TopSizes(topBasins);
+            private long risk;
+            private int seamBasins;
+            private long[] seamBasinSizes = new long[16];
+            private int[] firstRowSeamIds;
+            private int[] lastRowSeamIds;
+
+            private Tile(int fromRow, int toRow) {
+                int width = board.width();
+                int offset = fromRow * width;
+                int cells = (toRow - fromRow) * width;
+                if (cells == 0) {
+                    return;
+                }
+                BoardRiskCalculator riskCalculator = new BoardRiskCalculator(board);
+                int[] neighbours = new int[4];
+                UnionFind basins = new UnionFind(cells);
+                for (int cell = 0; cell < cells; cell++) {
+                    int index = offset + cell;
+                    if (board.get(index) == 9) {
+                        continue;
+                    }
+                    if (riskCalculator.isLowPoint(index, neighbours)) {
+                        risk += board.get(index) + 1;
+                    }
+                    if (cell >= width && board.get(index - width) != 9) {
+                        basins.union(cell, cell - width);
+                    }
+                    if (cell % width > 0 && board.get(index - 1) != 9) {
+                        basins.union(cell, cell - 1);
+                    }
+                }
+
+                int[] seamIds = new int[cells];
+                Arrays.fill(seamIds, -1);
+                if (fromRow > 0) {
+                    firstRowSeamIds = seamIds(basins, seamIds, 0, offset);
+                }
+                if (toRow < board.height()) {
+                    lastRowSeamIds = seamIds(basins, seamIds, cells - width, offset);
+                }
+                for (int cell = 0; cell < cells; cell++) {
+                    if (board.get(offset + cell) != 9 && basins.isRoot(cell) && seamIds[cell] < 0) {
+                        interiorSizes.offer(basins.setSize(cell));
+                    }
+                }
+            }
+
+            /**
+             * Seam ids of the basins of the row starting at tile cell {@code from}, -1 for 9s.
+             */
+            private int[] seamIds(UnionFind basins, int[] seamIds, int from, int offset) {
+                int[] rowSeamIds = new int[board.width()];
+                for (int j = 0; j < board.width(); j++) {
+                    if (board.get(offset + from + j) == 9) {
+                        rowSeamIds[j] = -1;
+                        continue;
+                    }
+                    int root = basins.find(from + j);
+                    if (seamIds[root] < 0) {
+                        if (seamBasins == seamBasinSizes.length) {
+                            seamBasinSizes = Arrays.copyOf(seamBasinSizes, seamBasins * 2);
+                        }
+                        seamBasinSizes[seamBasins] = basins.setSize(root);
+                        seamIds[root] = seamBasins++;
+                    }
+                    rowSeamIds[j] = seamIds[root];
+                }
+                return rowSeamIds;
+            }
+        }
     }
 }
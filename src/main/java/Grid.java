@@ -0,0 +1,166 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Rectangular board of {@code height} rows by {@code width} columns addressed either by (row, column) or by the
+ * row-major index {@code row * width + column}. Subclasses choose the flat primitive storage of the cells.
+ */
+public abstract class Grid {
+    public static final int[] ROW_OFFSETS_4 = {-1, 1, 0, 0};
+    public static final int[] COLUMN_OFFSETS_4 = {0, 0, -1, 1};
+    public static final int[] ROW_OFFSETS_8 = {-1, -1, -1, 0, 0, 1, 1, 1};
+    public static final int[] COLUMN_OFFSETS_8 = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private static final int SEQUENTIAL_CELLS = 1 << 16;
+
+    protected final int height;
+    protected final int width;
+    protected final boolean wrapping;
+    private final int[] indexOffsets4;
+    private final int[] indexOffsets8;
+
+    protected Grid(int height, int width, boolean wrapping) {
+        if (height < 0 || width < 0 || (long) height * width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported grid size " + height + "x" + width);
+        }
+        this.height = height;
+        this.width = width;
+        this.wrapping = wrapping;
+        this.indexOffsets4 = indexOffsets(ROW_OFFSETS_4, COLUMN_OFFSETS_4);
+        this.indexOffsets8 = indexOffsets(ROW_OFFSETS_8, COLUMN_OFFSETS_8);
+    }
+
+    private int[] indexOffsets(int[] rowOffsets, int[] columnOffsets) {
+        int[] indexOffsets = new int[rowOffsets.length];
+        for (int k = 0; k < rowOffsets.length; k++) {
+            indexOffsets[k] = rowOffsets[k] * width + columnOffsets[k];
+        }
+        return indexOffsets;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int size() {
+        return height * width;
+    }
+
+    public boolean isWrapping() {
+        return wrapping;
+    }
+
+    public int index(int row, int column) {
+        return row * width + column;
+    }
+
+    public int row(int index) {
+        return index / width;
+    }
+
+    public int column(int index) {
+        return index % width;
+    }
+
+    public boolean contains(int row, int column) {
+        return row >= 0 && row < height && column >= 0 && column < width;
+    }
+
+    public int wrapRow(int row) {
+        return row < 0 ? row + height : row >= height ? row - height : row;
+    }
+
+    public int wrapColumn(int column) {
+        return column < 0 ? column + width : column >= width ? column - width : column;
+    }
+
+    /**
+     * Writes the indexes of the up, down, left and right neighbours of {@code index} into {@code neighbours}
+     * and returns how many there are: cells beyond the border are skipped unless the grid wraps.
+     */
+    public int neighbours4(int index, int[] neighbours) {
+        return neighbours(index, ROW_OFFSETS_4, COLUMN_OFFSETS_4, indexOffsets4, neighbours);
+    }
+
+    /**
+     * Same as {@link #neighbours4(int, int[])} with the diagonal neighbours included.
+     */
+    public int neighbours8(int index, int[] neighbours) {
+        return neighbours(index, ROW_OFFSETS_8, COLUMN_OFFSETS_8, indexOffsets8, neighbours);
+    }
+
+    private int neighbours(int index, int[] rowOffsets, int[] columnOffsets, int[] indexOffsets, int[] neighbours) {
+        int row = index / width;
+        int column = index - row * width;
+        if (row > 0 && row < height - 1 && column > 0 && column < width - 1) {
+            for (int k = 0; k < indexOffsets.length; k++) {
+                neighbours[k] = index + indexOffsets[k];
+            }
+            return indexOffsets.length;
+        }
+        int count = 0;
+        for (int k = 0; k < rowOffsets.length; k++) {
+            int neighbourRow = row + rowOffsets[k];
+            int neighbourColumn = column + columnOffsets[k];
+            if (wrapping) {
+                neighbourRow = wrapRow(neighbourRow);
+                neighbourColumn = wrapColumn(neighbourColumn);
+            } else if (!contains(neighbourRow, neighbourColumn)) {
+                continue;
+            }
+            neighbours[count++] = neighbourRow * width + neighbourColumn;
+        }
+        return count;
+    }
+
+    /**
+     * Runs {@code action} over disjoint strips of whole rows, in parallel on the common pool once the grid is
+     * large enough to be worth it. Strips only share cells with their neighbours through what the action reads.
+     */
+    public void forEachRowStrip(RowStripAction action) {
+        sumRowStrips((fromRow, toRow) -> {
+            action.accept(fromRow, toRow);
+            return 0;
+        });
+    }
+
+    public long sumRowStrips(RowStripSum sum) {
+        if ((long) height * width <= SEQUENTIAL_CELLS || height < 2) {
+            return sum.apply(0, height);
+        }
+        int strips = Math.min(height, ForkJoinPool.getCommonPoolParallelism() * 4);
+        int stripHeight = (height + strips - 1) / strips;
+        return IntStream.range(0, (height + stripHeight - 1) / stripHeight)
+                .parallel()
+                .mapToLong(strip -> sum.apply(strip * stripHeight, Math.min(height, (strip + 1) * stripHeight)))
+                .sum();
+    }
+
+    protected abstract void appendCell(StringBuilder sb, int index);
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                appendCell(sb, index(row, column));
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    @FunctionalInterface
+    public interface RowStripAction {
+        void accept(int fromRow, int toRow);
+    }
+
+    @FunctionalInterface
+    public interface RowStripSum {
+        long apply(int fromRow, int toRow);
+    }
+}
@@ -0,0 +1,220 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Forward-only cursor over the raw bytes of an input. Numbers, digit rows and tokens are read straight from the
+ * buffer, so nothing is allocated per character; tokens are exposed as offsets into the buffer.
+ */
+public class InputCursor {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+    private int tokenStart;
+    private int tokenEnd;
+
+    public InputCursor(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    public static InputCursor of(String content) {
+        return new InputCursor(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    public static InputCursor of(List<String> lines) {
+        return of(String.join("\n", lines));
+    }
+
+    public boolean hasNext() {
+        while (position < limit && isWhitespace(buffer.get(position))) {
+            position++;
+        }
+        return position < limit;
+    }
+
+    public boolean hasNextInt() {
+        while (position < limit && !isNumberStart(position)) {
+            position++;
+        }
+        return position < limit;
+    }
+
+    public int nextInt() {
+        return Math.toIntExact(nextLong());
+    }
+
+    public long nextLong() {
+        if (!hasNextInt()) {
+            throw new NoSuchElementException("No number left at " + position);
+        }
+        boolean negative = buffer.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+        long value = 0;
+        while (position < limit && isDigit(buffer.get(position))) {
+            value = value * 10 + buffer.get(position++) - '0';
+        }
+        return negative ? -value : value;
+    }
+
+    public int[] remainingInts() {
+        int[] numbers = new int[16];
+        int count = 0;
+        while (hasNextInt()) {
+            if (count == numbers.length) {
+                numbers = Arrays.copyOf(numbers, count * 2);
+            }
+            numbers[count++] = nextInt();
+        }
+        return Arrays.copyOf(numbers, count);
+    }
+
+    /**
+     * Length of the next non-blank line, without moving past it.
+     */
+    public int nextLineLength() {
+        if (!hasNext()) {
+            return 0;
+        }
+        return lineEnd(position) - position;
+    }
+
+    public int nextDigitRow(int[] row) {
+        int length = nextLineLength();
+        if (length > row.length) {
+            throw new IllegalArgumentException("Row of " + length + " digits does not fit into " + row.length);
+        }
+        for (int i = 0; i < length; i++) {
+            row[i] = buffer.get(position++) - '0';
+        }
+        return length;
+    }
+
+    public int[] nextDigitRow() {
+        int[] row = new int[nextLineLength()];
+        nextDigitRow(row);
+        return row;
+    }
+
+    public int[][] remainingDigitRows() {
+        List<int[]> rows = new ArrayList<>();
+        while (hasNext()) {
+            rows.add(nextDigitRow());
+        }
+        return rows.toArray(new int[0][]);
+    }
+
+    /**
+     * Moves to the next run of non-whitespace bytes, which is then available through
+     * {@link #tokenStart()}, {@link #tokenLength()} and {@link #tokenByte(int)}.
+     */
+    public boolean nextToken() {
+        if (!hasNext()) {
+            tokenStart = tokenEnd = position;
+            return false;
+        }
+        tokenStart = position;
+        while (position < limit && !isWhitespace(buffer.get(position))) {
+            position++;
+        }
+        tokenEnd = position;
+        return true;
+    }
+
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenLength() {
+        return tokenEnd - tokenStart;
+    }
+
+    public byte tokenByte(int index) {
+        return buffer.get(tokenStart + index);
+    }
+
+    public boolean tokenEquals(String value) {
+        if (value.length() != tokenLength()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != tokenByte(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String token() {
+        return StandardCharsets.US_ASCII.decode(slice(tokenStart, tokenEnd)).toString();
+    }
+
+    public String nextLine() {
+        if (position >= limit) {
+            throw new NoSuchElementException("No line left at " + position);
+        }
+        int lineEnd = lineEnd(position);
+        String line = StandardCharsets.US_ASCII.decode(slice(position, lineEnd)).toString();
+        position = lineEnd;
+        if (position < limit && buffer.get(position) == '\r') {
+            position++;
+        }
+        if (position < limit && buffer.get(position) == '\n') {
+            position++;
+        }
+        return line;
+    }
+
+    public List<String> remainingLines() {
+        List<String> lines = new ArrayList<>();
+        while (position < limit) {
+            lines.add(nextLine());
+        }
+        return lines;
+    }
+
+    public ByteBuffer slice(int from, int to) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(to).position(from);
+        return slice.slice();
+    }
+
+    public byte byteAt(int index) {
+        return buffer.get(index);
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    private int lineEnd(int from) {
+        int end = from;
+        while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+            end++;
+        }
+        return end;
+    }
+
+    private boolean isNumberStart(int index) {
+        byte b = buffer.get(index);
+        return isDigit(b) || b == '-' && index + 1 < limit && isDigit(buffer.get(index + 1));
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -0,0 +1,56 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Locates and memory-maps puzzle inputs. The directory comes from {@link #setDirectory(Path)} (the runner's
+ * {@code --input=} argument), then the {@value #DIRECTORY_VARIABLE} environment variable, then {@code ./input}.
+ */
+public class InputFiles {
+    public static final String DIRECTORY_VARIABLE = "AOC_INPUT_DIR";
+    public static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+    private static final String DEFAULT_DIRECTORY = "input";
+
+    private static volatile Path directory;
+
+    public static void setDirectory(Path directory) {
+        InputFiles.directory = directory;
+    }
+
+    public static Path directory() {
+        if (directory != null) {
+            return directory;
+        }
+        String fromEnvironment = System.getenv(DIRECTORY_VARIABLE);
+        return Paths.get(fromEnvironment == null || fromEnvironment.isBlank() ? DEFAULT_DIRECTORY : fromEnvironment);
+    }
+
+    public static Path forDay(int day) {
+        return resolve(day + ".txt");
+    }
+
+    public static Path resolve(String fileName) {
+        return directory().resolve(fileName);
+    }
+
+    public static InputCursor open(int day) throws IOException {
+        return open(forDay(day));
+    }
+
+    public static InputCursor open(Path path) throws IOException {
+        return new InputCursor(map(path));
+    }
+
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_MAPPED_BYTES) {
+                throw new IOException(path + " is too large to map at once: " + size + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+}
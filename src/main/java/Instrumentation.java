@@ -0,0 +1,162 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Value;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Named solver phases. Every phase emits a {@code aoc.Phase} JFR event and, while the runner records a day on
+ * the current thread, adds its wall time and the bytes the thread allocated to that day's phase table.
+ * Nested phases are named {@code outer/inner}. Work a phase hands to other threads is timed but its
+ * allocations are not counted.
+ * <pre>
+ * Instrumentation.measure("pair scanners", () -&gt; ...);
+ * </pre>
+ */
+public final class Instrumentation {
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCountingThreads();
+    private static final ThreadLocal<Recorder> RECORDER = new ThreadLocal<>();
+
+    private Instrumentation() {
+    }
+
+    public static <T> T measure(String name, Supplier<T> body) {
+        Phase phase = new Phase(name);
+        try {
+            return body.get();
+        } finally {
+            phase.close();
+        }
+    }
+
+    public static void measure(String name, Runnable body) {
+        Phase phase = new Phase(name);
+        try {
+            body.run();
+        } finally {
+            phase.close();
+        }
+    }
+
+    static void startRecording(int day) {
+        RECORDER.set(new Recorder(day));
+    }
+
+    static List<PhaseStats> stopRecording() {
+        Recorder recorder = RECORDER.get();
+        RECORDER.remove();
+        return recorder == null ? List.of() : recorder.stats();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCountingThreads() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class Phase {
+        private final Recorder recorder;
+        private final Phase parent;
+        private final String name;
+        private final PhaseEvent event = new PhaseEvent();
+        private final long startNanos;
+        private final long startAllocatedBytes;
+
+        private Phase(String name) {
+            this.recorder = RECORDER.get();
+            this.parent = recorder == null ? null : recorder.current;
+            this.name = parent == null ? name : parent.name + "/" + name;
+            if (recorder != null) {
+                recorder.current = this;
+                recorder.totals.computeIfAbsent(this.name, ignored -> new long[3]);
+            }
+            event.begin();
+            this.startAllocatedBytes = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        private void close() {
+            long nanos = System.nanoTime() - startNanos;
+            long allocated = allocatedBytes() - startAllocatedBytes;
+            event.end();
+            if (event.shouldCommit()) {
+                event.day = recorder == null ? 0 : recorder.day;
+                event.phase = name;
+                event.allocatedBytes = allocated;
+                event.commit();
+            }
+            if (recorder != null) {
+                recorder.record(name, nanos, allocated);
+                recorder.current = parent;
+            }
+        }
+    }
+
+    @Value
+    public static class PhaseStats {
+        int day;
+        String phase;
+        int calls;
+        long nanos;
+        long allocatedBytes;
+    }
+
+    private static class Recorder {
+        private final int day;
+        private final Map<String, long[]> totals = new LinkedHashMap<>();
+        private Phase current;
+
+        private Recorder(int day) {
+            this.day = day;
+        }
+
+        private void record(String phase, long nanos, long allocatedBytes) {
+            long[] total = totals.get(phase);
+            total[0]++;
+            total[1] += nanos;
+            total[2] += allocatedBytes;
+        }
+
+        private List<PhaseStats> stats() {
+            List<PhaseStats> stats = new ArrayList<>();
+            for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+                long[] total = entry.getValue();
+                stats.add(new PhaseStats(day, entry.getKey(), (int) total[0], total[1], total[2]));
+            }
+            return stats;
+        }
+    }
+
+    @Name("aoc.Phase")
+    @Label("Solver Phase")
+    @Category("Advent of Code")
+    static class PhaseEvent extends Event {
+        @Label("Day")
+        int day;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.Arrays;
+
+/**
+ * Grid of {@code int} cells in one row-major {@code int[]}, e.g. path costs over a board.
+ */
+public class IntGrid extends Grid {
+    private final int[] cells;
+
+    public IntGrid(int height, int width, boolean wrapping) {
+        super(height, width, wrapping);
+        this.cells = new int[height * width];
+    }
+
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public int get(int row, int column) {
+        return cells[index(row, column)];
+    }
+
+    public void set(int index, int value) {
+        cells[index] = value;
+    }
+
+    public void set(int row, int column, int value) {
+        cells[index(row, column)] = value;
+    }
+
+    public void fill(int value) {
+        Arrays.fill(cells, value);
+    }
+
+    @Override
+    protected void appendCell(StringBuilder sb, int index) {
+        if (index % width != 0) {
+            sb.append(' ');
+        }
+        sb.append(cells[index]);
+    }
+}
@@ -0,0 +1,34 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface Solver<T> {
+    int day();
+
+    T parse(List<String> lines);
+
+    default T parse(InputCursor cursor) {
+        return parse(cursor.remainingLines());
+    }
+
+    /**
+     * Parses an input file larger than {@link InputFiles#MAX_MAPPED_BYTES}, which the runners cannot map into
+     * one cursor. Days whose input can be read in pieces override it; the others fail to map the file.
+     */
+    default T parse(Path path) throws IOException {
+        return parse(InputFiles.open(path));
+    }
+
+    Object part1(T input);
+
+    Object part2(T input);
+
+    /**
+     * Part of the {@link AnswerCache} key next to a fingerprint of the solver's own bytecode. Bump it when the
+     * day's answers change through code the fingerprint does not cover, such as shared grid or parsing classes,
+     * or to drop cached answers on purpose.
+     */
+    default int version() {
+        return 1;
+    }
+}
@@ -0,0 +1,300 @@
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+public class SolverRunner {
+    private static volatile AnswerCache answerCache = AnswerCache.fromEnvironment().orElse(null);
+
+    private static final String USAGE = "Usage: SolverRunner [day|from-to ...] [--threads=N] [--iterations=N]"
+            + " [--input=DIR] [--cache=DIR] [--cache-size-mb=N]";
+
+    public static void main(String[] args) throws Exception {
+        RunnerConfig config;
+        try {
+            config = RunnerConfig.of(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        if (config.inputDirectory != null) {
+            InputFiles.setDirectory(config.inputDirectory);
+        }
+        if (config.cacheDirectory != null) {
+            setAnswerCache(new AnswerCache(config.cacheDirectory, config.cacheBytes));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+        try {
+            long startTs = System.nanoTime();
+            List<Integer> futureDays = new ArrayList<>();
+            List<Future<DayResult>> futures = new ArrayList<>();
+            for (int iteration = 0; iteration < config.iterations; iteration++) {
+                for (Integer day : config.days) {
+                    Solver<?> solver = Solvers.forDay(day);
+                    futureDays.add(day);
+                    futures.add(executor.submit(() -> readAndSolve(solver)));
+                }
+            }
+            List<DayResult> results = new ArrayList<>();
+            Map<Integer, Throwable> failures = new TreeMap<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    failures.putIfAbsent(futureDays.get(i), e.getCause());
+                }
+            }
+            long endTs = System.nanoTime();
+
+            if (!results.isEmpty()) {
+                printReport(results);
+            }
+            for (Map.Entry<Integer, Throwable> failure : failures.entrySet()) {
+                System.out.println("Day " + failure.getKey() + " failed: " + failure.getValue());
+            }
+            System.out.println("Days - " + config.days.size() + ", iterations - " + config.iterations
+                    + ", threads - " + config.threads + ", failed - " + failures.size() + ", total time took - " + Duration.ofNanos(endTs - startTs).toMillis());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static void setAnswerCache(AnswerCache cache) {
+        answerCache = cache;
+    }
+
+    /**
+     * Solves a single day; the optional argument is the input file, otherwise the day's file in
+     * {@link InputFiles#directory()} is used.
+     */
+    public static void run(Solver<?> solver, String... args) throws IOException {
+        Path input = args.length > 0 ? Paths.get(args[0]) : InputFiles.forDay(solver.day());
+        DayResult result = readAndSolve(solver, input);
+        System.out.println("Part 1: " + result.part1);
+        System.out.println("Part 2: " + result.part2);
+        System.out.println((result.cached ? "Cached, read - " : "Read - ") + toMillis(result.readNanos) + " ms, parse - " + toMillis(result.parseNanos) + " ms, solve - " + toMillis(result.solveNanos()) + " ms");
+        printPhases(List.of(result));
+    }
+
+    public static List<String> readInput(int day) throws IOException {
+        return InputFiles.open(day).remainingLines();
+    }
+
+    public static DayResult readAndSolve(Solver<?> solver) throws IOException {
+        return readAndSolve(solver, InputFiles.forDay(solver.day()));
+    }
+
+    /**
+     * Maps and solves {@code input}. With an {@link AnswerCache} configured the read includes hashing the file,
+     * and when both answers for that hash are cached parsing and solving are skipped. A file too large to map is
+     * parsed straight from its path by {@link Solver#parse(Path)} and never cached.
+     */
+    public static DayResult readAndSolve(Solver<?> solver, Path input) throws IOException {
+        if (Files.size(input) > InputFiles.MAX_MAPPED_BYTES) {
+            return solveUnmapped(solver, input);
+        }
+        AnswerCache cache = answerCache;
+        long startTs = System.nanoTime();
+        MappedByteBuffer buffer = InputFiles.map(input);
+        buffer.load();
+        AnswerCache.Key key = cache == null ? null : cache.key(solver, buffer);
+        long readTs = System.nanoTime();
+        if (key != null) {
+            Optional<String> part1 = cache.get(key, 1);
+            Optional<String> part2 = part1.isPresent() ? cache.get(key, 2) : Optional.empty();
+            if (part2.isPresent()) {
+                return new DayResult(solver.day(), part1.get(), part2.get(), true,
+                        System.nanoTime() - startTs, 0, 0, 0, List.of());
+            }
+        }
+        DayResult result = solve(solver, new InputCursor(buffer), readTs - startTs);
+        if (key != null) {
+            cache.put(key, 1, result.part1);
+            cache.put(key, 2, result.part2);
+        }
+        return result;
+    }
+
+    public static DayResult solve(Solver<?> solver, List<String> lines) {
+        return solve(solver, InputCursor.of(lines), 0);
+    }
+
+    private static <T> DayResult solveUnmapped(Solver<T> solver, Path input) throws IOException {
+        try {
+            return solve(solver, () -> {
+                try {
+                    return solver.parse(input);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, 0);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> DayResult solve(Solver<T> solver, InputCursor cursor, long readNanos) {
+        return solve(solver, () -> solver.parse(cursor), readNanos);
+    }
+
+    private static <T> DayResult solve(Solver<T> solver, Supplier<T> parser, long readNanos) {
+        long startTs, parsedTs, part1Ts, part2Ts;
+        Object part1, part2;
+        List<Instrumentation.PhaseStats> phases;
+        Instrumentation.startRecording(solver.day());
+        try {
+            startTs = System.nanoTime();
+            T input = Instrumentation.measure("parse", parser);
+            parsedTs = System.nanoTime();
+            part1 = Instrumentation.measure("part 1", () -> solver.part1(input));
+            part1Ts = System.nanoTime();
+            part2 = Instrumentation.measure("part 2", () -> solver.part2(input));
+            part2Ts = System.nanoTime();
+        } finally {
+            phases = Instrumentation.stopRecording();
+        }
+        return new DayResult(solver.day(), String.valueOf(part1), String.valueOf(part2), false,
+                readNanos, parsedTs - startTs, part1Ts - parsedTs, part2Ts - part1Ts, phases);
+    }
+
+    private static void printReport(List<DayResult> results) {
+        Map<Integer, List<DayResult>> resultsByDay = results.stream()
+                .collect(Collectors.groupingBy(DayResult::getDay, TreeMap::new, Collectors.toList()));
+        System.out.println(String.format("%4s %12s %12s %12s %12s %12s %12s %12s %7s",
+                "day", "wall avg ms", "wall max ms", "read ms", "parse ms", "part 1 ms", "part 2 ms", "solve ms", "cached"));
+        for (Map.Entry<Integer, List<DayResult>> entry : resultsByDay.entrySet()) {
+            List<DayResult> dayResults = entry.getValue();
+            System.out.println(String.format("%4d %12.3f %12.3f %12.3f %12.3f %12.3f %12.3f %12.3f %7s",
+                    entry.getKey(),
+                    average(dayResults, DayResult::wallNanos),
+                    toMillis(dayResults.stream().mapToLong(DayResult::wallNanos).max().getAsLong()),
+                    average(dayResults, DayResult::getReadNanos),
+                    average(dayResults, DayResult::getParseNanos),
+                    average(dayResults, DayResult::getPart1Nanos),
+                    average(dayResults, DayResult::getPart2Nanos),
+                    average(dayResults, DayResult::solveNanos),
+                    dayResults.stream().filter(DayResult::isCached).count() + "/" + dayResults.size()));
+        }
+        printPhases(results);
+        DayResult slowest = results.stream().max(Comparator.comparingLong(DayResult::wallNanos)).get();
+        System.out.println(String.format("Slowest day - %d, wall - %.3f ms", slowest.day, toMillis(slowest.wallNanos())));
+        for (Map.Entry<Integer, List<DayResult>> entry : resultsByDay.entrySet()) {
+            DayResult result = entry.getValue().get(0);
+            System.out.println("Day " + result.day + ": " + result.part1 + " | " + result.part2);
+        }
+    }
+
+    /**
+     * Phase totals per day, averaged over the iterations that ran it.
+     */
+    private static void printPhases(List<DayResult> results) {
+        Map<Integer, List<DayResult>> resultsByDay = results.stream()
+                .collect(Collectors.groupingBy(DayResult::getDay, TreeMap::new, Collectors.toList()));
+        System.out.println(String.format("%4s %-40s %8s %12s %14s", "day", "phase", "calls", "avg ms", "avg alloc MB"));
+        for (Map.Entry<Integer, List<DayResult>> entry : resultsByDay.entrySet()) {
+            int iterations = entry.getValue().size();
+            Map<String, List<Instrumentation.PhaseStats>> phases = entry.getValue().stream()
+                    .flatMap(result -> result.phases.stream())
+                    .collect(Collectors.groupingBy(Instrumentation.PhaseStats::getPhase, LinkedHashMap::new, Collectors.toList()));
+            for (Map.Entry<String, List<Instrumentation.PhaseStats>> phase : phases.entrySet()) {
+                List<Instrumentation.PhaseStats> stats = phase.getValue();
+                System.out.println(String.format("%4d %-40s %8d %12.3f %14.3f",
+                        entry.getKey(),
+                        phase.getKey(),
+                        stats.stream().mapToInt(Instrumentation.PhaseStats::getCalls).sum() / iterations,
+                        toMillis(stats.stream().mapToLong(Instrumentation.PhaseStats::getNanos).sum() / iterations),
+                        stats.stream().mapToLong(Instrumentation.PhaseStats::getAllocatedBytes).sum() / (double) iterations / (1 << 20)));
+            }
+        }
+    }
+
+    private static double average(List<DayResult> results, ToLongFunction<DayResult> metric) {
+        return toMillis((long) results.stream().mapToLong(metric).average().getAsDouble());
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @Value
+    public static class DayResult {
+        int day;
+        String part1;
+        String part2;
+        boolean cached;
+        long readNanos;
+        long parseNanos;
+        long part1Nanos;
+        long part2Nanos;
+        List<Instrumentation.PhaseStats> phases;
+
+        public long solveNanos() {
+            return part1Nanos + part2Nanos;
+        }
+
+        public long wallNanos() {
+            return readNanos + parseNanos + part1Nanos + part2Nanos;
+        }
+    }
+
+    private static class RunnerConfig {
+        private final TreeSet<Integer> days = new TreeSet<>();
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int iterations = 1;
+        private Path inputDirectory;
+        private Path cacheDirectory;
+        private long cacheBytes = AnswerCache.DEFAULT_MAX_BYTES;
+
+        public static RunnerConfig of(String[] args) {
+            RunnerConfig config = new RunnerConfig();
+            for (String arg : args) {
+                if (arg.startsWith("--threads=")) {
+                    config.threads = Integer.parseInt(arg.substring("--threads=".length()));
+                } else if (arg.startsWith("--iterations=")) {
+                    config.iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+                } else if (arg.startsWith("--input=")) {
+                    config.inputDirectory = Paths.get(arg.substring("--input=".length()));
+                } else if (arg.startsWith("--cache=")) {
+                    config.cacheDirectory = Paths.get(arg.substring("--cache=".length()));
+                } else if (arg.startsWith("--cache-size-mb=")) {
+                    config.cacheBytes = Long.parseLong(arg.substring("--cache-size-mb=".length())) << 20;
+                } else if (arg.matches("\\d+-\\d+")) {
+                    String[] range = arg.split("-");
+                    for (int day = Integer.parseInt(range[0]); day <= Integer.parseInt(range[1]); day++) {
+                        config.days.add(day);
+                    }
+                } else if (arg.matches("\\d+")) {
+                    config.days.add(Integer.parseInt(arg));
+                } else {
+                    throw new IllegalArgumentException("Unknown argument " + arg);
+                }
+            }
+            if (config.days.isEmpty()) {
+                config.days.addAll(Solvers.all().keySet());
+            }
+            return config;
+        }
+    }
+}
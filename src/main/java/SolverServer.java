@@ -0,0 +1,307 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local HTTP front end for the solvers.
+ * <pre>
+ * SolverServer [--bind=127.0.0.1] [--port=8021] [--threads=N] [--batch-window-micros=500] [--max-batch=64]
+ *              [--max-body-bytes=67108864]
+ * curl --data-binary @input/6.txt localhost:8021/day/6/part/2
+ * curl localhost:8021/metrics
+ * </pre>
+ * The server listens on the loopback interface unless {@code --bind} names another address, and answers 413 to
+ * an input larger than {@code --max-body-bytes}.
+ * Requests for a day are queued and, once the first of them has waited the batch window, drained in batches on
+ * the worker pool: requests of a batch with the same input share one parse, and one thread runs a whole batch so
+ * the day's code stays hot. {@code /metrics} serves request latency histograms per day and part, and batch sizes,
+ * in the Prometheus text format.
+ */
+public class SolverServer {
+    private static final Pattern SOLVE_PATH = Pattern.compile("/day/(\\d+)/part/([12])/?");
+
+    private final ScheduledExecutorService workers;
+    private final long batchWindowMicros;
+    private final int maxBatch;
+    private final int maxBodyBytes;
+    private final ConcurrentMap<Integer, DayBatcher> batchers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LatencyHistogram> latencies = new ConcurrentSkipListMap<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+
+    public SolverServer(int threads, long batchWindowMicros, int maxBatch, int maxBodyBytes) {
+        this.workers = Executors.newScheduledThreadPool(threads);
+        this.batchWindowMicros = batchWindowMicros;
+        this.maxBatch = maxBatch;
+        this.maxBodyBytes = Math.min(maxBodyBytes, Integer.MAX_VALUE - 1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        InetAddress bindAddress = InetAddress.getLoopbackAddress();
+        int port = 8021;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long batchWindowMicros = 500;
+        int maxBatch = 64;
+        int maxBodyBytes = 64 << 20;
+        for (String arg : args) {
+            if (arg.startsWith("--bind=")) {
+                bindAddress = InetAddress.getByName(arg.substring("--bind=".length()));
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--batch-window-micros=")) {
+                batchWindowMicros = Long.parseLong(arg.substring("--batch-window-micros=".length()));
+            } else if (arg.startsWith("--max-batch=")) {
+                maxBatch = Integer.parseInt(arg.substring("--max-batch=".length()));
+            } else if (arg.startsWith("--max-body-bytes=")) {
+                maxBodyBytes = Integer.parseInt(arg.substring("--max-body-bytes=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+        HttpServer server = new SolverServer(threads, batchWindowMicros, maxBatch, maxBodyBytes)
+                .start(new InetSocketAddress(bindAddress, port));
+        System.out.println("Listening on " + server.getAddress());
+    }
+
+    public HttpServer start(InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, 0);
+        server.createContext("/day/", this::handleSolve);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(Executors.newFixedThreadPool(2));
+        server.start();
+        return server;
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long startTs = System.nanoTime();
+        Matcher matcher = SOLVE_PATH.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.matches()) {
+            respond(exchange, 404, "Expected /day/{n}/part/{1|2}");
+            return;
+        }
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "Expected POST with the input as body");
+            return;
+        }
+        int day = Integer.parseInt(matcher.group(1));
+        int part = Integer.parseInt(matcher.group(2));
+        if (!Solvers.all().containsKey(day)) {
+            respond(exchange, 404, "No solver for day " + day);
+            return;
+        }
+        byte[] input;
+        try {
+            input = readBody(exchange);
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, "Malformed Content-Length");
+            return;
+        }
+        if (input == null) {
+            respond(exchange, 413, "Input is larger than " + maxBodyBytes + " bytes");
+            return;
+        }
+        batchers.computeIfAbsent(day, ignored -> new DayBatcher(Solvers.forDay(day)))
+                .submit(part, input)
+                .whenComplete((answer, error) -> {
+                    try {
+                        if (error == null) {
+                            respond(exchange, 200, answer);
+                        } else {
+                            respond(exchange, 500, String.valueOf(error));
+                        }
+                    } catch (IOException e) {
+                        exchange.close();
+                    } finally {
+                        latencies.computeIfAbsent(Coordinates.pack(day, part), ignored -> new LatencyHistogram())
+                                .record(System.nanoTime() - startTs);
+                    }
+                });
+    }
+
+    /**
+     * The request body, or null when it is larger than the limit. A declared length over the limit is refused
+     * without reading the body, and one that is not a number throws {@link NumberFormatException}.
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null && Long.parseLong(contentLength.trim()) > maxBodyBytes) {
+            return null;
+        }
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] input = body.readNBytes(maxBodyBytes + 1);
+            return input.length > maxBodyBytes ? null : input;
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE aoc_request_latency_seconds histogram\n");
+        for (Map.Entry<Long, LatencyHistogram> entry : latencies.entrySet()) {
+            long dayAndPart = entry.getKey();
+            entry.getValue().appendTo(sb, "aoc_request_latency_seconds",
+                    "day=\"" + Coordinates.x(dayAndPart) + "\",part=\"" + Coordinates.y(dayAndPart) + "\"");
+        }
+        sb.append("# TYPE aoc_batches_total counter\n");
+        sb.append("aoc_batches_total ").append(batches.sum()).append('\n');
+        sb.append("# TYPE aoc_batched_requests_total counter\n");
+        sb.append("aoc_batched_requests_total ").append(batchedRequests.sum()).append('\n');
+        respond(exchange, 200, sb.toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static <T> void solveBatch(Solver<T> solver, List<PendingRequest> batch) {
+        Map<ByteBuffer, List<PendingRequest>> requestsByInput = new LinkedHashMap<>();
+        for (PendingRequest request : batch) {
+            requestsByInput.computeIfAbsent(ByteBuffer.wrap(request.input), ignored -> new ArrayList<>()).add(request);
+        }
+        for (Map.Entry<ByteBuffer, List<PendingRequest>> entry : requestsByInput.entrySet()) {
+            List<PendingRequest> requests = entry.getValue();
+            T input;
+            try {
+                input = Instrumentation.measure("parse", () -> solver.parse(new InputCursor(entry.getKey().duplicate())));
+            } catch (RuntimeException | Error e) {
+                requests.forEach(request -> request.answer.completeExceptionally(e));
+                continue;
+            }
+            String[] answers = new String[3];
+            Throwable[] errors = new Throwable[3];
+            for (PendingRequest request : requests) {
+                if (answers[request.part] == null && errors[request.part] == null) {
+                    try {
+                        answers[request.part] = String.valueOf(request.part == 1
+                                ? Instrumentation.measure("part 1", () -> solver.part1(input))
+                                : Instrumentation.measure("part 2", () -> solver.part2(input)));
+                    } catch (RuntimeException | Error e) {
+                        errors[request.part] = e;
+                    }
+                }
+                if (errors[request.part] != null) {
+                    request.answer.completeExceptionally(errors[request.part]);
+                } else {
+                    request.answer.complete(answers[request.part]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pending requests of one day. The first request into an empty queue schedules a drain after the batch
+     * window; a drain that leaves requests behind hands the rest straight to another worker.
+     */
+    private class DayBatcher {
+        private final Solver<?> solver;
+        private final Queue<PendingRequest> pending = new ArrayDeque<>();
+        private boolean scheduled;
+
+        private DayBatcher(Solver<?> solver) {
+            this.solver = solver;
+        }
+
+        private CompletableFuture<String> submit(int part, byte[] input) {
+            PendingRequest request = new PendingRequest(part, input);
+            synchronized (this) {
+                pending.add(request);
+                if (!scheduled) {
+                    scheduled = true;
+                    workers.schedule(this::drain, batchWindowMicros, TimeUnit.MICROSECONDS);
+                }
+            }
+            return request.answer;
+        }
+
+        private void drain() {
+            List<PendingRequest> batch = new ArrayList<>();
+            synchronized (this) {
+                while (batch.size() < maxBatch && !pending.isEmpty()) {
+                    batch.add(pending.poll());
+                }
+                if (pending.isEmpty()) {
+                    scheduled = false;
+                } else {
+                    workers.execute(this::drain);
+                }
+            }
+            batches.increment();
+            batchedRequests.add(batch.size());
+            solveBatch(solver, batch);
+        }
+    }
+
+    private static class PendingRequest {
+        private final int part;
+        private final byte[] input;
+        private final CompletableFuture<String> answer = new CompletableFuture<>();
+
+        private PendingRequest(int part, byte[] input) {
+            this.part = part;
+            this.input = input;
+        }
+    }
+
+    /**
+     * Cumulative counts over fixed bucket bounds from 0.1 ms to 10 s.
+     */
+    private static class LatencyHistogram {
+        private static final double[] BOUNDS_SECONDS = {
+                0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_SECONDS.length + 1);
+        private final LongAdder totalNanos = new LongAdder();
+
+        private void record(long nanos) {
+            double seconds = nanos / 1e9;
+            int bucket = 0;
+            while (bucket < BOUNDS_SECONDS.length && seconds > BOUNDS_SECONDS[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            totalNanos.add(nanos);
+        }
+
+        private void appendTo(StringBuilder sb, String name, String labels) {
+            long cumulative = 0;
+            for (int bucket = 0; bucket <= BOUNDS_SECONDS.length; bucket++) {
+                cumulative += counts.get(bucket);
+                String bound = bucket < BOUNDS_SECONDS.length ? String.valueOf(BOUNDS_SECONDS[bucket]) : "+Inf";
+                sb.append(name).append("_bucket{").append(labels).append(",le=\"").append(bound).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            sb.append(name).append("_sum{").append(labels).append("} ").append(totalNanos.sum() / 1e9).append('\n');
+            sb.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+        }
+    }
+}
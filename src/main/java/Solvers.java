@@ -0,0 +1,49 @@
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class Solvers {
+    private static final Map<Integer, Solver<?>> SOLVERS = new TreeMap<>();
+
+    static {
+        register(new Day6_InfiniteSpawningFish());
+        register(new Day7_CrabsPosition());
+        register(new Day8_Fixing8DigitClock());
+        register(new Day9_DjikstraRiskManagement());
+        register(new Day10_Braces());
+        register(new Day11_LuminescentOctopus());
+        register(new Day12_CaveMaze());
+        register(new Day13_FoldingPaper());
+        register(new Day14_PolymersCreation());
+        register(new Day15_SafestPath());
+        register(new Day16_Calculator());
+        register(new Day17_ProbeFiring());
+        register(new Day18_SnaiNumbers());
+        register(new Day19_ScannersAndBeacons());
+        register(new Day20_ImageEnhancing());
+        register(new Day21_DiracDice());
+        register(new Day22_ReactorReboot());
+        register(new Day23_AmphipodMoving());
+        register(new Day24_Assembler());
+        register(new Day25_MovingCucumbers());
+    }
+
+    private Solvers() {
+    }
+
+    private static void register(Solver<?> solver) {
+        SOLVERS.put(solver.day(), solver);
+    }
+
+    public static Solver<?> forDay(int day) {
+        Solver<?> solver = SOLVERS.get(day);
+        if (solver == null) {
+            throw new IllegalArgumentException("No solver for day " + day);
+        }
+        return solver;
+    }
+
+    public static Map<Integer, Solver<?>> all() {
+        return Collections.unmodifiableMap(SOLVERS);
+    }
+}
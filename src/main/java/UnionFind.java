@@ -0,0 +1,85 @@
+import java.util.Arrays;
+
+/**
+ * Disjoint sets over the ints {@code 0 .. size() - 1} in flat arrays, with path compression and union by size.
+ * Elements are either all created up front or added one at a time, e.g. as labels while scanning a grid.
+ */
+public class UnionFind {
+    private int[] parents;
+    private int[] sizes;
+    private int count;
+
+    public UnionFind(int elements) {
+        this.parents = new int[Math.max(elements, 16)];
+        this.sizes = new int[parents.length];
+        for (int element = 0; element < elements; element++) {
+            parents[element] = element;
+            sizes[element] = 1;
+        }
+        this.count = elements;
+    }
+
+    /**
+     * Adds a singleton set and returns its element.
+     */
+    public int add() {
+        if (count == parents.length) {
+            parents = Arrays.copyOf(parents, count * 2);
+            sizes = Arrays.copyOf(sizes, count * 2);
+        }
+        parents[count] = count;
+        sizes[count] = 1;
+        return count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Drops every element, keeping the arrays for reuse.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    public int find(int element) {
+        int root = element;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        while (parents[element] != root) {
+            int parent = parents[element];
+            parents[element] = root;
+            element = parent;
+        }
+        return root;
+    }
+
+    /**
+     * Joins the sets of both elements, the smaller under the larger, and returns the root of the joined set.
+     */
+    public int union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot) {
+            return firstRoot;
+        }
+        if (sizes[firstRoot] < sizes[secondRoot]) {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        parents[secondRoot] = firstRoot;
+        sizes[firstRoot] += sizes[secondRoot];
+        return firstRoot;
+    }
+
+    public boolean isRoot(int element) {
+        return parents[element] == element;
+    }
+
+    public int setSize(int element) {
+        return sizes[find(element)];
+    }
+}